@@ -0,0 +1,70 @@
+package io.advantageous.dcos;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.advantageous.qbit.admin.ManagedServiceBuilder.managedServiceBuilder;
+import static io.advantageous.qbit.admin.ServiceManagementBundleBuilder.serviceManagementBundleBuilder;
+
+/**
+ * Add and list on the in-memory Todo service, called directly without the HTTP layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private TodoServiceImpl todoService;
+    private long createTime;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final ServiceManagementBundle mgmt = serviceManagementBundleBuilder()
+                .setServiceName("TodoServiceBenchmark")
+                .setManagedServiceBuilder(managedServiceBuilder()).build();
+        todoService = new TodoServiceImpl(mgmt);
+
+        for (createTime = 0; createTime < size; createTime++) {
+            todoService.addTodo(new Todo("todo", "description", createTime)).invoke();
+        }
+    }
+
+    @Benchmark
+    public void addTodo(final Blackhole blackhole) {
+        todoService.addTodo(new Todo("todo", "description", createTime++))
+                .then(blackhole::consume)
+                .invoke();
+    }
+
+    @Benchmark
+    public void listTodos(final Blackhole blackhole) {
+        todoService.listTodos()
+                .then(blackhole::consume)
+                .invoke();
+    }
+
+    @Benchmark
+    public String listTodosJson() {
+        return todoService.listTodosJson().body();
+    }
+}
@@ -0,0 +1,202 @@
+package io.advantageous.dcos;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted map of Todos by id.
+ *
+ * This is an AVL tree with path copying, so {@link #put} and {@link #remove} return a new map
+ * in O(log n) that shares every untouched node with the old one. Old maps stay valid, which
+ * makes them safe to hand out to readers without copying. Nodes also keep their subtree size
+ * so the map can be read by position like a list.
+ */
+final class PersistentTodoMap implements Iterable<Todo> {
+
+    static final PersistentTodoMap EMPTY = new PersistentTodoMap(null);
+
+    private final Node root;
+
+    private PersistentTodoMap(final Node root) {
+        this.root = root;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return the number of levels of the tree, at most about 1.44 log2(n + 2).
+     */
+    int height() {
+        return height(root);
+    }
+
+    boolean containsKey(final String id) {
+        Node node = root;
+        while (node != null) {
+            final int compare = id.compareTo(node.id);
+            if (compare == 0) {
+                return true;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    PersistentTodoMap put(final String id, final Todo todo) {
+        return new PersistentTodoMap(put(root, id, todo));
+    }
+
+    PersistentTodoMap remove(final String id) {
+        if (!containsKey(id)) {
+            return this;
+        }
+        return new PersistentTodoMap(remove(root, id));
+    }
+
+    /**
+     * @return the todo at the given position in id order.
+     */
+    Todo get(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " size " + size());
+        }
+        Node node = root;
+        int position = index;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.todo;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Todo> iterator() {
+        return new Iterator<Todo>() {
+            private final Deque<Node> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Todo next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final Node node = stack.pop();
+                pushLeft(node.right);
+                return node.todo;
+            }
+        };
+    }
+
+    private static Node put(final Node node, final String id, final Todo todo) {
+        if (node == null) {
+            return new Node(id, todo, null, null);
+        }
+        final int compare = id.compareTo(node.id);
+        if (compare < 0) {
+            return balance(node.id, node.todo, put(node.left, id, todo), node.right);
+        } else if (compare > 0) {
+            return balance(node.id, node.todo, node.left, put(node.right, id, todo));
+        }
+        return new Node(id, todo, node.left, node.right);
+    }
+
+    private static Node remove(final Node node, final String id) {
+        if (node == null) {
+            return null;
+        }
+        final int compare = id.compareTo(node.id);
+        if (compare < 0) {
+            return balance(node.id, node.todo, remove(node.left, id), node.right);
+        } else if (compare > 0) {
+            return balance(node.id, node.todo, node.left, remove(node.right, id));
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.id, min.todo, node.left, remove(node.right, min.id));
+    }
+
+    private static Node balance(final String id, final Todo todo, final Node left, final Node right) {
+        final int leftHeight = height(left);
+        final int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.id, left.todo, left.left, new Node(id, todo, left.right, right));
+            }
+            return new Node(left.right.id, left.right.todo,
+                    new Node(left.id, left.todo, left.left, left.right.left),
+                    new Node(id, todo, left.right.right, right));
+        }
+
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.id, right.todo, new Node(id, todo, left, right.left), right.right);
+            }
+            return new Node(right.left.id, right.left.todo,
+                    new Node(id, todo, left, right.left.left),
+                    new Node(right.id, right.todo, right.left.right, right.right));
+        }
+
+        return new Node(id, todo, left, right);
+    }
+
+    private static int height(final Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(final Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final String id;
+        private final Todo todo;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        private Node(final String id, final Todo todo, final Node left, final Node right) {
+            this.id = id;
+            this.todo = todo;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+}
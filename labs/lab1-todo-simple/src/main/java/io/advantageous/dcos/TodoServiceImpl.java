@@ -9,17 +9,16 @@ import io.advantageous.qbit.annotation.RequestParam;
 import io.advantageous.qbit.annotation.http.DELETE;
 import io.advantageous.qbit.annotation.http.GET;
 import io.advantageous.qbit.annotation.http.POST;
+import io.advantageous.qbit.http.request.HttpTextResponse;
 import io.advantageous.reakt.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
+import static io.advantageous.qbit.http.request.HttpResponseBuilder.httpResponseBuilder;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
 
@@ -76,7 +75,8 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
 public class TodoServiceImpl implements TodoService {
 
 
-    private final Map<String, Todo> todoMap = new TreeMap<>();
+    /** Current version of the todo list, replaced on every add and remove. */
+    private volatile TodoSnapshot todos = TodoSnapshot.EMPTY;
     private final ServiceManagementBundle mgmt;
     private final DiscoveryService discoveryService;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -103,7 +103,7 @@ public class TodoServiceImpl implements TodoService {
         return invokablePromise(promise -> {
             /** Send KPI addTodo called every time the addTodo method gets called. */
             mgmt.increment("addTodo.called");
-            todoMap.put(todo.getId(), todo);
+            todos = todos.add(todo);
             promise.accept(true);
         });
     }
@@ -116,24 +116,44 @@ public class TodoServiceImpl implements TodoService {
         return invokablePromise(promise -> {
             /** Send KPI addTodo.removed every time the removeTodo method gets called. */
             mgmt.increment("removeTodo.called");
-            todoMap.remove(id);
+            todos = todos.remove(id);
             promise.accept(true);
         });
     }
 
 
+    /**
+     * In process callers get the list view of the current version. Over HTTP
+     * {@code GET /todo} is answered by {@link #listTodosJson()}.
+     */
     @Override
-    @GET(value = "/todo")
     public final Promise<List<Todo>> listTodos() {
         logger.debug("List todos");
         return invokablePromise(promise -> {
             /** Send KPI addTodo.listTodos every time the listTodos method gets called. */
             mgmt.increment("listTodos.called");
-            promise.accept(new ArrayList<>(todoMap.values()));
+            promise.accept(todos.list());
         });
     }
 
 
+    /**
+     * Answers {@code GET /todo} and {@code GET /todo/json} with the JSON of the current
+     * version, which is serialized once per version instead of on every call.
+     */
+    @GET(value = {"/todo", "/todo/json"})
+    public final HttpTextResponse listTodosJson() {
+        logger.debug("List todos as JSON");
+        /** Send KPI listTodos.json every time the listTodosJson method gets called. */
+        mgmt.increment("listTodos.json.called");
+        return httpResponseBuilder()
+                .setCode(200)
+                .setContentType("application/json")
+                .setBody(todos.json())
+                .buildTextResponse();
+    }
+
+
     @POST(value = "/service")
     public final Promise<List<URI>> listServices(URI uri) {
         logger.debug("List services");
@@ -0,0 +1,85 @@
+package io.advantageous.dcos;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+import static io.advantageous.boon.json.JsonFactory.toJson;
+
+/**
+ * One version of the Todo list.
+ *
+ * A snapshot never changes once created, adding or removing a Todo makes the next version
+ * which shares most of its tree with this one. The list view and its JSON are built at
+ * most once per version, so reads at the same version do not allocate or serialize again.
+ */
+final class TodoSnapshot {
+
+    static final TodoSnapshot EMPTY = new TodoSnapshot(0, PersistentTodoMap.EMPTY);
+
+    private final long version;
+    private final PersistentTodoMap todos;
+    private final List<Todo> view;
+    private volatile String json;
+
+    private TodoSnapshot(final long version, final PersistentTodoMap todos) {
+        this.version = version;
+        this.todos = todos;
+        this.view = new TodoListView(todos);
+    }
+
+    TodoSnapshot add(final Todo todo) {
+        return new TodoSnapshot(version + 1, todos.put(todo.getId(), todo));
+    }
+
+    TodoSnapshot remove(final String id) {
+        final PersistentTodoMap removed = todos.remove(id);
+        return removed == todos ? this : new TodoSnapshot(version + 1, removed);
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * @return an immutable list view of this version, no copy is made.
+     */
+    List<Todo> list() {
+        return view;
+    }
+
+    /**
+     * @return the list as JSON, serialized the first time it is asked for at this version.
+     */
+    String json() {
+        String result = json;
+        if (result == null) {
+            result = toJson(view);
+            json = result;
+        }
+        return result;
+    }
+
+    private static final class TodoListView extends AbstractList<Todo> {
+        private final PersistentTodoMap todos;
+
+        private TodoListView(final PersistentTodoMap todos) {
+            this.todos = todos;
+        }
+
+        @Override
+        public Todo get(final int index) {
+            return todos.get(index);
+        }
+
+        @Override
+        public int size() {
+            return todos.size();
+        }
+
+        @Override
+        public Iterator<Todo> iterator() {
+            return todos.iterator();
+        }
+    }
+}
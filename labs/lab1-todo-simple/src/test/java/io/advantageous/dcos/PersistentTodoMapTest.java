@@ -0,0 +1,131 @@
+package io.advantageous.dcos;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class PersistentTodoMapTest {
+
+    @Test
+    public void testPutKeepsIdOrder() {
+        final PersistentTodoMap map = PersistentTodoMap.EMPTY
+                .put("c", todo("c"))
+                .put("a", todo("a"))
+                .put("b", todo("b"));
+
+        assertEquals(3, map.size());
+        assertEquals(ids("a", "b", "c"), ids(map));
+        assertEquals("b", map.get(1).getName());
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("d"));
+    }
+
+    @Test
+    public void testPutReplacesTheSameId() {
+        final PersistentTodoMap map = PersistentTodoMap.EMPTY
+                .put("a", todo("a"))
+                .put("a", todo("b"));
+
+        assertEquals(1, map.size());
+        assertEquals("b", map.get(0).getName());
+    }
+
+    @Test
+    public void testRemove() {
+        PersistentTodoMap map = PersistentTodoMap.EMPTY;
+        for (final String id : new String[]{"d", "b", "f", "a", "c", "e", "g"}) {
+            map = map.put(id, todo(id));
+        }
+
+        map = map.remove("d").remove("a").remove("g");
+
+        assertEquals(ids("b", "c", "e", "f"), ids(map));
+        assertFalse(map.containsKey("d"));
+        assertSame("removing a missing id keeps the map", map, map.remove("x"));
+    }
+
+    @Test
+    public void testStaysBalancedForSortedInserts() {
+        PersistentTodoMap map = PersistentTodoMap.EMPTY;
+        for (int index = 0; index < 1000; index++) {
+            final String id = String.format("%04d", index);
+            map = map.put(id, todo(id));
+            assertBalanced(map);
+        }
+
+        for (int index = 0; index < 900; index++) {
+            map = map.remove(String.format("%04d", index));
+            assertBalanced(map);
+        }
+        assertEquals(100, map.size());
+        assertEquals("0900", map.get(0).getName());
+    }
+
+    @Test
+    public void testMatchesATreeMap() {
+        final Random random = new Random(42);
+        final TreeMap<String, Todo> expected = new TreeMap<>();
+        PersistentTodoMap map = PersistentTodoMap.EMPTY;
+
+        for (int step = 0; step < 5000; step++) {
+            final String id = String.valueOf(random.nextInt(500));
+            if (random.nextBoolean()) {
+                expected.put(id, todo(id));
+                map = map.put(id, todo(id));
+            } else {
+                expected.remove(id);
+                map = map.remove(id);
+            }
+        }
+
+        final List<String> expectedIds = new ArrayList<>();
+        expected.values().forEach(todo -> expectedIds.add(todo.getId()));
+        assertEquals(expectedIds, ids(map));
+        assertBalanced(map);
+    }
+
+    @Test
+    public void testOldVersionsDoNotChange() {
+        final PersistentTodoMap first = PersistentTodoMap.EMPTY.put("a", todo("a")).put("b", todo("b"));
+        final PersistentTodoMap second = first.put("c", todo("c")).remove("a");
+
+        assertEquals(ids("a", "b"), ids(first));
+        assertEquals(ids("b", "c"), ids(second));
+        assertEquals(0, PersistentTodoMap.EMPTY.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        PersistentTodoMap.EMPTY.put("a", todo("a")).get(1);
+    }
+
+    private static void assertBalanced(final PersistentTodoMap map) {
+        final double bound = 1.45 * Math.log(map.size() + 2) / Math.log(2);
+        assertTrue("height " + map.height() + " for " + map.size() + " todos", map.height() <= bound);
+    }
+
+    private static Todo todo(final String name) {
+        return new Todo(name, name, 1L);
+    }
+
+    private static List<String> ids(final String... names) {
+        final List<String> ids = new ArrayList<>();
+        for (final String name : names) {
+            ids.add(todo(name).getId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(final PersistentTodoMap map) {
+        final List<String> ids = new ArrayList<>();
+        for (final Todo todo : map) {
+            ids.add(todo.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,37 @@
+package io.advantageous.dcos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TodoSnapshotTest {
+
+    @Test
+    public void testJsonIsSerializedOncePerVersion() {
+        final TodoSnapshot snapshot = TodoSnapshot.EMPTY.add(new Todo("a", "a", 1L));
+
+        assertSame(snapshot.json(), snapshot.json());
+        assertTrue(snapshot.json().contains("a::1"));
+    }
+
+    @Test
+    public void testReadersKeepTheirVersion() {
+        final TodoSnapshot first = TodoSnapshot.EMPTY.add(new Todo("a", "a", 1L));
+        final String firstJson = first.json();
+
+        final TodoSnapshot second = first.add(new Todo("b", "b", 1L)).remove("a::1");
+
+        assertEquals(1, first.list().size());
+        assertEquals("a", first.list().get(0).getName());
+        assertEquals(firstJson, first.json());
+        assertEquals("b", second.list().get(0).getName());
+        assertEquals(first.version() + 2, second.version());
+    }
+
+    @Test
+    public void testRemovingAMissingIdKeepsTheVersion() {
+        final TodoSnapshot snapshot = TodoSnapshot.EMPTY.add(new Todo("a", "a", 1L));
+
+        assertSame(snapshot, snapshot.remove("x"));
+    }
+}
@@ -0,0 +1,49 @@
+package io.advantageous.j1.reakt;
+
+import com.datastax.driver.core.BenchmarkRows;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps one Todo row with the repository's row mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoRowMapperBenchmark {
+
+    private TodoRepo todoRepo;
+    private Row row;
+
+    @Setup
+    public void setup() {
+        todoRepo = new TodoRepo(1, Collections.emptyList());
+        row = BenchmarkRows.row("todokeyspace", "todo",
+                "id", DataType.text(), "todo::1473000000000",
+                "createtime", DataType.timestamp(), new Date(1473000000000L),
+                "name", DataType.text(), "todo",
+                "description", DataType.text(), "benchmark the todo row mapper");
+    }
+
+    @Benchmark
+    public Todo mapTodo() {
+        return todoRepo.mapTodoFromRow(row);
+    }
+}
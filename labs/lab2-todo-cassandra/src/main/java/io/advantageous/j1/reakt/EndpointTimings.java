@@ -0,0 +1,90 @@
+package io.advantageous.j1.reakt;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.promise.Promise;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
+
+/**
+ * Latency of the endpoints of a service, from the call until its promise is resolved or
+ * rejected, in microseconds. Successes and failures go to separate histograms.
+ */
+public class EndpointTimings {
+
+    private static final String HEARTBEAT_KEY = "i.am.alive";
+
+    private final String prefix;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param prefix the service, as in {@code todo}.
+     */
+    public EndpointTimings(final String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Use in place of {@code invokablePromise} in an endpoint method, the body is handed
+     * a promise that records the latency when it completes.
+     */
+    public <T> Promise<T> timed(final String endpoint, final Consumer<Promise<T>> body) {
+        final long start = System.nanoTime();
+        final Endpoint timing = endpoint(endpoint);
+        return invokablePromise(promise -> {
+            final Promise<T> timed = promise();
+            body.accept(timed
+                    .then(result -> {
+                        timing.success.record((System.nanoTime() - start) / 1000);
+                        promise.resolve(result);
+                    })
+                    .catchError(error -> {
+                        timing.failure.record((System.nanoTime() - start) / 1000);
+                        promise.reject(error);
+                    }));
+        });
+    }
+
+    /**
+     * Sends {@code prefix.endpoint.latency.success} and {@code prefix.endpoint.latency.failure}
+     * for every endpoint, see {@link LatencyHistogram#report}. Call it from the reactor of the
+     * service.
+     */
+    public void report(final ServiceManagementBundle mgmt) {
+        endpoints.forEach((name, timing) -> {
+            timing.success.report(mgmt, prefix + '.' + name + ".latency.success");
+            timing.failure.report(mgmt, prefix + '.' + name + ".latency.failure");
+        });
+    }
+
+    /**
+     * Registers one repeating task on the reactor of the service that sends the
+     * {@code i.am.alive} heartbeat and the endpoint timings, then runs the other reports
+     * in order.
+     */
+    public void reportEvery(final Duration period, final ServiceManagementBundle mgmt,
+                            final Runnable... reports) {
+        mgmt.reactor().addRepeatingTask(period, () -> {
+            mgmt.increment(HEARTBEAT_KEY);
+            report(mgmt);
+            for (final Runnable report : reports) {
+                report.run();
+            }
+        });
+    }
+
+    private Endpoint endpoint(final String name) {
+        final Endpoint endpoint = endpoints.get(name);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(name, key -> new Endpoint());
+    }
+
+    private static final class Endpoint {
+        private final LatencyHistogram success = new LatencyHistogram();
+        private final LatencyHistogram failure = new LatencyHistogram();
+    }
+}
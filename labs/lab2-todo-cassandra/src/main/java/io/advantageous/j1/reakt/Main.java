@@ -32,7 +32,10 @@ public class Main {
 
         final TodoService todoService = new TodoServiceImpl(serviceManagementBundle,
                 new TodoRepo(config.getInt("cassandra.replicationFactor"),
-                        config.getUriList("cassandra.uris")));
+                        config.getUriList("cassandra.uris"),
+                        config.getBoolean("cassandra.preparedStatements"),
+                        config.getInt("cassandra.slowQueryMillis"),
+                        ConnectionProfile.fromConfig(config.getConfig("cassandra.connection"))));
 
         /* Start the service. */
         managedServiceBuilder
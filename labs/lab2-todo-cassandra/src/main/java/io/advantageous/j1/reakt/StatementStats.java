@@ -0,0 +1,173 @@
+package io.advantageous.j1.reakt;
+
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency, rows, paging round trips and coordinators of the statements a repository runs,
+ * per statement shape, plus a log of the statements slower than a threshold.
+ *
+ * Shapes are the statements the repository builds once, so they are looked up by identity
+ * without building the CQL. Tracking a statement costs two clock reads, a map lookup and a
+ * few atomic increments in the driver's callback, so it can stay on in production.
+ *
+ * A shape is named after its verb, table and a hash of its CQL, as in
+ * {@code select.todo.3f2a}, the CQL of every name is logged once when first seen.
+ */
+public class StatementStats {
+
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 200;
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementStats.class);
+
+    private final long slowQueryNanos;
+    private final ConcurrentMap<RegularStatement, Shape> shapes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Host, Coordinator> coordinators = new ConcurrentHashMap<>();
+
+    public StatementStats(final long slowQueryMillis) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    /**
+     * Records the execution when the future completes.
+     *
+     * @param start {@code System.nanoTime()} before the statement was prepared or sent.
+     * @param paged true if the execution fetches a page after the first one.
+     */
+    public ListenableFuture<ResultSet> track(final RegularStatement statement, final long start,
+                                             final boolean paged, final ListenableFuture<ResultSet> future) {
+        final Shape shape = shape(statement);
+        Futures.addCallback(future, new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(final ResultSet resultSet) {
+                final long elapsed = System.nanoTime() - start;
+                final int rows = resultSet.getAvailableWithoutFetching();
+                final ExecutionInfo info = resultSet.getExecutionInfo();
+                final Host host = info == null ? null : info.getQueriedHost();
+
+                shape.latency.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+                shape.rows.addAndGet(rows);
+                if (paged) {
+                    shape.pages.incrementAndGet();
+                }
+                if (host != null) {
+                    coordinator(host).executions.incrementAndGet();
+                }
+                if (elapsed >= slowQueryNanos) {
+                    logger.warn("Slow query {} took {} ms on {}, {} rows: {}", shape.name,
+                            TimeUnit.NANOSECONDS.toMillis(elapsed), host, rows, shape.cql);
+                }
+            }
+
+            @Override
+            public void onFailure(final Throwable error) {
+                shape.failures.incrementAndGet();
+                final long elapsed = System.nanoTime() - start;
+                if (elapsed >= slowQueryNanos) {
+                    logger.warn("Slow query {} failed after {} ms: {}", shape.name,
+                            TimeUnit.NANOSECONDS.toMillis(elapsed), shape.cql);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Sends the latency of every shape as {@code prefix.shape.latency}, see
+     * {@link LatencyHistogram#report}, the counts since the last report as
+     * {@code prefix.shape.rows}, {@code prefix.shape.pages} and {@code prefix.shape.failed},
+     * and the executions per coordinator as {@code prefix.coordinator.host}. Call it from
+     * the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        for (final Shape shape : shapes.values()) {
+            final String name = prefix + '.' + shape.name;
+            shape.latency.report(mgmt, name + ".latency");
+            shape.reportedRows = report(mgmt, name + ".rows", shape.rows.get(), shape.reportedRows);
+            shape.reportedPages = report(mgmt, name + ".pages", shape.pages.get(), shape.reportedPages);
+            shape.reportedFailures = report(mgmt, name + ".failed", shape.failures.get(), shape.reportedFailures);
+        }
+        for (final Coordinator coordinator : coordinators.values()) {
+            coordinator.reported = report(mgmt, prefix + ".coordinator." + coordinator.name,
+                    coordinator.executions.get(), coordinator.reported);
+        }
+    }
+
+    private Shape shape(final RegularStatement statement) {
+        final Shape shape = shapes.get(statement);
+        return shape != null ? shape : shapes.computeIfAbsent(statement, key -> {
+            final String cql = key.getQueryString();
+            final Shape created = new Shape(name(cql), cql);
+            logger.info("Statement shape {} is {}", created.name, cql);
+            return created;
+        });
+    }
+
+    private Coordinator coordinator(final Host host) {
+        final Coordinator coordinator = coordinators.get(host);
+        return coordinator != null ? coordinator : coordinators.computeIfAbsent(host,
+                key -> new Coordinator(key.getAddress().getHostAddress().replaceAll("[^A-Za-z0-9]", "_")));
+    }
+
+    static String name(final String cql) {
+        final String[] words = cql.trim().split("\\s+");
+        String table = "unknown";
+        for (int index = 0; index < words.length - 1; index++) {
+            if (words[index].equalsIgnoreCase("FROM") || words[index].equalsIgnoreCase("INTO")
+                    || index == 0 && words[index].equalsIgnoreCase("UPDATE")) {
+                table = words[index + 1].split("\\(")[0];
+                break;
+            }
+        }
+        return words[0].toLowerCase() + '.' + table.replaceAll("[^A-Za-z0-9_]", "").toLowerCase() + '.'
+                + String.format("%04x", cql.hashCode() & 0xffff);
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+
+    private static final class Shape {
+        private final String name;
+        private final String cql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private long reportedRows;
+        private long reportedPages;
+        private long reportedFailures;
+
+        private Shape(final String name, final String cql) {
+            this.name = name;
+            this.cql = cql;
+        }
+    }
+
+    private static final class Coordinator {
+        private final String name;
+        private final AtomicLong executions = new AtomicLong();
+        private long reported;
+
+        private Coordinator(final String name) {
+            this.name = name;
+        }
+    }
+}
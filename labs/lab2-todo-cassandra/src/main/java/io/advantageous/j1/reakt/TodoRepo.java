@@ -1,11 +1,20 @@
 package io.advantageous.j1.reakt;
 
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.querybuilder.Select;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,11 +22,14 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static com.datastax.driver.core.Cluster.Builder;
 import static com.datastax.driver.core.Cluster.builder;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static io.advantageous.reakt.guava.Guava.registerCallback;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 import static io.advantageous.reakt.promise.Promises.promise;
@@ -25,15 +37,68 @@ import static java.util.Arrays.asList;
 
 public class TodoRepo {
 
+    private static final int FETCH_SIZE = 500;
+
+    private static final Insert INSERT_TODO = QueryBuilder.insertInto("Todo")
+            .value("id", bindMarker())
+            .value("createTime", bindMarker())
+            .value("name", bindMarker())
+            .value("description", bindMarker());
+
+    private static final Select.Where LOAD_TODOS = QueryBuilder.select()
+            .all()
+            .from("Todo")
+            .where();
+
+    private static final Select.Where STREAM_TODOS = QueryBuilder.select()
+            .all()
+            .from("Todo")
+            .where();
+
+    static {
+        LOAD_TODOS.limit(1000);
+    }
+
     private final List<URI> cassandraUris;
     private final int replicationFactor;
+    private final boolean preparedStatements;
+    private final PreparedStatementCache preparedStatementCache = new PreparedStatementCache();
+    private final StatementStats statementStats;
+    private final ConnectionProfile connectionProfile;
+    private final ConnectionState connectionState;
     private final AtomicReference<Session> sessionRef = new AtomicReference<>();
     private final Logger logger = LoggerFactory.getLogger(TodoRepo.class);
 
     TodoRepo(final int replicationFactor, final List<URI> cassandraUris) {
+        this(replicationFactor, cassandraUris, true);
+    }
+
+    /**
+     * @param preparedStatements when false statements are sent as plain CQL every time,
+     *                           which is only useful to benchmark against the prepared path.
+     */
+    TodoRepo(final int replicationFactor, final List<URI> cassandraUris, final boolean preparedStatements) {
+        this(replicationFactor, cassandraUris, preparedStatements, StatementStats.DEFAULT_SLOW_QUERY_MILLIS);
+    }
+
+    TodoRepo(final int replicationFactor, final List<URI> cassandraUris, final boolean preparedStatements,
+             final long slowQueryMillis) {
+        this(replicationFactor, cassandraUris, preparedStatements, slowQueryMillis, ConnectionProfile.DEFAULT);
+    }
+
+    /**
+     * @param slowQueryMillis   statements that take at least this long are logged.
+     * @param connectionProfile routing, pooling, compression and timeouts of the driver.
+     */
+    TodoRepo(final int replicationFactor, final List<URI> cassandraUris, final boolean preparedStatements,
+             final long slowQueryMillis, final ConnectionProfile connectionProfile) {
+        this.statementStats = new StatementStats(slowQueryMillis);
+        this.connectionProfile = connectionProfile;
+        this.connectionState = new ConnectionState(this::connectSession);
         this.replicationFactor = replicationFactor;
+        this.preparedStatements = preparedStatements;
         this.cassandraUris = Collections.unmodifiableList(cassandraUris);
-        logger.info("Cassandra connection URIs {}", cassandraUris);
+        logger.info("Cassandra connection URIs {}, prepared statements {}", cassandraUris, preparedStatements);
     }
 
     TodoRepo(final int replicationFactor, final URI... connections) {
@@ -52,14 +117,26 @@ public class TodoRepo {
         );
     }
 
-    private void doLoadTodos(Promise<List<Todo>> promise) {
-        final Select.Where query = QueryBuilder.select()
-                .all()
-                .from("Todo")
-                .where();
-        query.limit(1000);
+    /**
+     * Streams every Todo page by page instead of loading them into one list.
+     * The next page is fetched as the handler requests more, see {@link PagedResultStream}.
+     */
+    public void loadTodos(final Stream<Todo> stream) {
+        ifConnected("Stream todos", stream, () ->
+                new PagedResultStream<>(this::fetchTodoPage, this::mapTodoFromRow, stream, FETCH_SIZE).start());
+    }
 
-        registerCallback(sessionRef.get().executeAsync(query),
+    private ListenableFuture<ResultSet> fetchTodoPage(final PagingState pagingState) {
+        return executeAsync(STREAM_TODOS, pagingState != null, statement -> {
+            statement.setFetchSize(FETCH_SIZE);
+            if (pagingState != null) {
+                statement.setPagingState(pagingState);
+            }
+        });
+    }
+
+    private void doLoadTodos(Promise<List<Todo>> promise) {
+        registerCallback(executeAsync(LOAD_TODOS),
                 promise(ResultSet.class)
                         .catchError(error -> promise.reject("Problem loading Todos", error))
                         .thenSafe(resultSet -> {
@@ -70,7 +147,7 @@ public class TodoRepo {
 
     }
 
-    private Todo mapTodoFromRow(final Row row) {
+    Todo mapTodoFromRow(final Row row) {
         final String name = row.getString("name");
         final String description = row.getString("description");
         final long createTime = row.getTimestamp("createTime").getTime();
@@ -79,32 +156,95 @@ public class TodoRepo {
     }
 
     private void doAddTodo(final Promise<Boolean> promise, final Todo todo) {
-
-        final Insert insert = QueryBuilder.insertInto("Todo")
-                .value("id", todo.getId())
-                .value("createTime", todo.getCreateTime())
-                .value("name", todo.getName())
-                .value("description", todo.getDescription());
-
-        registerCallback(sessionRef.get().executeAsync(insert),
+        registerCallback(executeAsync(INSERT_TODO, todoValues(todo)),
                 promise(ResultSet.class)
                         .catchError(promise::reject)
                         .then(resultSet -> promise.resolve(resultSet.wasApplied()))
         );
     }
 
+    private Object[] todoValues(final Todo todo) {
+        return new Object[]{todo.getId(), new Date(todo.getCreateTime()), todo.getName(), todo.getDescription()};
+    }
+
+    /**
+     * Statement latency, rows, paging round trips and coordinators of this repository.
+     */
+    public StatementStats statementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Connect attempts, failures and backoff of this repository.
+     */
+    public ConnectionState connectionState() {
+        return connectionState;
+    }
+
+    /**
+     * Runs the statement shape with the given bind values. Shapes are prepared once per session
+     * and bound on every call, unless prepared statements were switched off.
+     */
+    private ListenableFuture<ResultSet> executeAsync(final RegularStatement statement, final Object... values) {
+        return executeAsync(statement, false, bound -> {}, values);
+    }
+
+    /**
+     * @param paged true when fetching a page after the first one, counted as a paging round trip.
+     */
+    private ListenableFuture<ResultSet> executeAsync(final RegularStatement statement,
+                                                     final boolean paged,
+                                                     final Consumer<Statement> options,
+                                                     final Object... values) {
+        final long start = System.nanoTime();
+        final Session session = sessionRef.get();
+
+        if (!preparedStatements) {
+            final Statement simple = new SimpleStatement(statement.getQueryString(), values);
+            simple.setIdempotent(ConnectionProfile.isIdempotent(statement));
+            options.accept(simple);
+            return statementStats.track(statement, start, paged, session.executeAsync(simple));
+        }
+
+        return statementStats.track(statement, start, paged,
+                Futures.transform(preparedStatementCache.prepare(session, statement),
+                        (AsyncFunction<PreparedStatement, ResultSet>) prepared -> {
+                            final Statement bound = prepared.bind(values);
+                            bound.setIdempotent(ConnectionProfile.isIdempotent(statement));
+                            options.accept(bound);
+                            return session.executeAsync(bound);
+                        }));
+    }
 
+
+    /**
+     * Connects, or joins the connect attempt in flight, see {@link ConnectionState}.
+     */
     public Promise<Boolean> connect() {
+        return invokablePromise(connectionState::connect);
+    }
+
+    private Promise<Boolean> connectSession() {
         return invokablePromise(promise ->
                 connectInternal()
                         .catchError(promise::reject)
                         .then(session -> {
-                            sessionRef.set(session);
+                            useSession(session);
                             promise.resolve(true);
                         }).invoke()
         );
     }
 
+    /**
+     * Switches to the new session and closes the cluster of the one it replaces.
+     */
+    private void useSession(final Session session) {
+        final Session previous = sessionRef.getAndSet(session);
+        if (previous != null && previous != session) {
+            previous.getCluster().closeAsync();
+        }
+    }
+
     private Promise<Session> connectInternal() {
         return invokablePromise(promise -> {
             try {
@@ -116,9 +256,9 @@ public class TodoRepo {
     }
 
     private void doConnect(Promise<Session> promise) {
-        final Builder builder = builder();
+        final Builder builder = connectionProfile.configure(builder());
         cassandraUris.forEach(cassandraURI -> builder.withPort(cassandraURI.getPort())
-                .addContactPoints(cassandraURI.getHost()).build());
+                .addContactPoints(cassandraURI.getHost()));
 
         final Promise<Session> sessionPromise = promise(Session.class)
                 .catchError(error -> promise.reject("Unable to load initial session", error))
@@ -132,7 +272,10 @@ public class TodoRepo {
     private synchronized void buildDBIfNeeded(final Session session,
                                               final Promise<Session> promise) {
 
+        // Already set up, keep the current session and drop the new cluster.
         if (isConnected()) {
+            session.getCluster().closeAsync();
+            promise.resolve(sessionRef.get());
             return;
         }
 
@@ -185,27 +328,45 @@ public class TodoRepo {
 
     private void ifConnected(final String operation,
                             final Promise<?> promise, final Runnable runnable) {
-        // If we are not connected, try to connect, but fail this request.
+        // If we are not connected, run once the one connect attempt in flight succeeded.
         if (!isConnected()) {
-            forceConnect();
-            //Promise rejected because we were not connected.
-            promise.reject("Not connected to cassandra for operation " + operation);
+            connectionState.connect(promise(Boolean.class)
+                    .then(connected -> run(operation, promise, runnable))
+                    //Promise rejected because we could not connect.
+                    .catchError(error -> promise.reject("Not connected to cassandra for operation " + operation, error)));
         } else {
-            // Try running the operation
-            try {
-                runnable.run();
-            } catch (Exception ex) {
-                //Operation failed, exit
-                promise.reject("Error running " + operation, ex);
-            }
+            run(operation, promise, runnable);
         }
     }
 
-    private void forceConnect() {
-        this.connectInternal()
-                .catchError(error -> logger.error("Can't connect to cassandra {}", error))
-                .then(sessionRef::set)
-                .invoke();
+    private void run(final String operation, final Promise<?> promise, final Runnable runnable) {
+        // Try running the operation
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            //Operation failed, exit
+            promise.reject("Error running " + operation, ex);
+        }
+    }
+
+    private void ifConnected(final String operation,
+                             final Stream<?> stream, final Runnable runnable) {
+        if (!isConnected()) {
+            connectionState.connect(promise(Boolean.class)
+                    .then(connected -> run(operation, stream, runnable))
+                    .catchError(error -> stream.fail(
+                            new IllegalStateException("Not connected to cassandra for operation " + operation, error))));
+        } else {
+            run(operation, stream, runnable);
+        }
+    }
+
+    private void run(final String operation, final Stream<?> stream, final Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            stream.fail(new IllegalStateException("Error running " + operation, ex));
+        }
     }
 
     public void close() {
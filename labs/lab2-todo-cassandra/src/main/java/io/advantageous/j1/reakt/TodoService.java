@@ -6,6 +6,7 @@ import java.util.List;
 
 public interface TodoService {
     Promise<Boolean> addTodo(Todo todo);
+    Promise<Boolean> addTodos(List<Todo> todos);
     Promise<Boolean> removeTodo(String id);
     Promise<List<Todo>> listTodos();
 }
\ No newline at end of file
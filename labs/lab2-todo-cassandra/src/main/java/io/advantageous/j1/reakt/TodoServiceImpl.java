@@ -15,8 +15,11 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
 
 
 /**
@@ -73,17 +76,22 @@ public class TodoServiceImpl implements TodoService {
 
 
     private final ServiceManagementBundle mgmt;
+    private final EndpointTimings timings = new EndpointTimings("todo");
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final TodoRepo todoRep;
+    private final TodoWriteCoalescer writes;
 
 
     public TodoServiceImpl(ServiceManagementBundle mgmt, TodoRepo todoRepo) {
         this.mgmt = mgmt;
         this.todoRep = todoRepo;
+        this.writes = new TodoWriteCoalescer(todoRepo, mgmt.reactor(),
+                () -> mgmt.increment("addTodo.coalesced"));
 
-        /** Send stat count i.am.alive every three seconds.  */
-        mgmt.reactor().addRepeatingTask(Duration.ofSeconds(3),
-                () -> mgmt.increment("i.am.alive"));
+        /** Send i.am.alive, the endpoint timings and the Cassandra stats every three seconds.  */
+        timings.reportEvery(Duration.ofSeconds(3), mgmt,
+                () -> todoRepo.statementStats().report(mgmt, "todo.cassandra"),
+                () -> todoRepo.connectionState().report(mgmt, "todo.cassandra.connection"));
 
         mgmt.reactor().deferRun(() -> todoRepo.connect()
                 .catchError(error -> logger.error("Error connecting to repo", error))
@@ -116,25 +124,72 @@ public class TodoServiceImpl implements TodoService {
 //    }
 
 
+    /**
+     * Writes for an id that already has a write in flight are coalesced, see
+     * {@link TodoWriteCoalescer}.
+     */
     @Override
     @POST(value = "/todo")
     public Promise<Boolean> addTodo(final Todo todo) {
-        logger.info("Add Todo to list {}", todo);
-        return invokablePromise(promise -> {
+        logger.debug("Add Todo to list {}", todo);
+        return timings.timed("addTodo", promise -> {
             /** Send KPI addTodo called every time the addTodo method gets called. */
             mgmt.increment("addTodo.called");
-            todoRep.addTodo(todo)
+            writes.add(todo, promise(Boolean.class)
                     .then(result -> {
-                        logger.info("Added todo to repo");
+                        logger.debug("Added todo to repo");
                         promise.resolve(result);
                         mgmt.increment("addTodo.called.success"); //TRACK SUCCESS
                     })
                     .catchError(error -> {
-                        logger.error("Unable to add todo to repo", error);
                         promise.reject("Unable to add todo to repo");
                         mgmt.increment("addTodo.called.failure"); //TRACK FAILURE
+                    }));
+        });
+    }
+
+
+    /**
+     * Adds every todo with its own write, all in flight at once except for repeated ids,
+     * which are coalesced like in {@link #addTodo(Todo)}. Resolves once every write is done,
+     * rejects on the first failed write.
+     */
+    @Override
+    @POST(value = "/todo/batch")
+    public Promise<Boolean> addTodos(final List<Todo> todos) {
+        return timings.timed("addTodos", promise -> {
+            /** Send KPI addTodos called every time the addTodos method gets called. */
+            mgmt.increment("addTodos.called");
+
+            if (todos == null || todos.contains(null)) {
+                promise.reject("Todos required");
+                mgmt.increment("addTodos.called.failure"); //TRACK FAILURE
+                return;
+            }
+
+            logger.debug("Add {} Todos to list", todos.size());
+            if (todos.isEmpty()) {
+                promise.resolve(true);
+                mgmt.increment("addTodos.called.success"); //TRACK SUCCESS
+                return;
+            }
+
+            final AtomicInteger remaining = new AtomicInteger(todos.size());
+            final AtomicBoolean failed = new AtomicBoolean();
+
+            todos.forEach(todo -> writes.add(todo, promise(Boolean.class)
+                    .then(result -> {
+                        if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                            promise.resolve(true);
+                            mgmt.increment("addTodos.called.success"); //TRACK SUCCESS
+                        }
                     })
-                    .invokeWithReactor(mgmt.reactor()); //use the reactor
+                    .catchError(error -> {
+                        if (failed.compareAndSet(false, true)) {
+                            promise.reject("Unable to add todos to repo");
+                            mgmt.increment("addTodos.called.failure"); //TRACK FAILURE
+                        }
+                    })));
         });
     }
 
@@ -143,7 +198,7 @@ public class TodoServiceImpl implements TodoService {
     @DELETE(value = "/todo")
     public final Promise<Boolean> removeTodo(final @RequestParam("id") String id) {
         logger.debug("Add Todo from list {}", id);
-        return invokablePromise(promise -> {
+        return timings.timed("removeTodo", promise -> {
             /** Send KPI addTodo.removed every time the removeTodo method gets called. */
             mgmt.increment("removeTodo.called");
             //not implemented
@@ -156,7 +211,7 @@ public class TodoServiceImpl implements TodoService {
     @GET(value = "/todo/")
     public final Promise<List<Todo>> listTodos() {
         logger.debug("List todos");
-        return invokablePromise(promise -> {
+        return timings.timed("listTodos", promise -> {
             /** Send KPI addTodo.listTodos every time the listTodos method gets called. */
             mgmt.increment("listTodos.called");
 
@@ -0,0 +1,102 @@
+package io.advantageous.j1.reakt;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Reactor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps at most one write per Todo id in flight and coalesces the writes that arrive for
+ * an id while its write is outstanding.
+ *
+ * Todo ids come from the client, so the same id can be written many times in a burst.
+ * Only the latest Todo waiting for an id is written once the outstanding write completes,
+ * the ones it replaced are never sent. Every caller's promise completes with the write
+ * that carried its Todo or a later one for the same id.
+ *
+ * Write results are handled on the reactor. Not thread safe, only call it from the
+ * service queue thread that owns the reactor.
+ */
+class TodoWriteCoalescer {
+
+    private final TodoRepo todoRepo;
+    private final Reactor reactor;
+    private final Runnable coalesced;
+    private final Map<String, PendingWrite> inFlight = new HashMap<>();
+    private final Map<String, PendingWrite> waiting = new HashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(TodoWriteCoalescer.class);
+
+    /**
+     * @param coalesced runs for every write that was folded into a later one.
+     */
+    TodoWriteCoalescer(final TodoRepo todoRepo, final Reactor reactor, final Runnable coalesced) {
+        this.todoRepo = todoRepo;
+        this.reactor = reactor;
+        this.coalesced = coalesced;
+    }
+
+    void add(final Todo todo, final Promise<Boolean> promise) {
+        final String id = todo.getId();
+        if (!inFlight.containsKey(id)) {
+            write(new PendingWrite(todo, promise));
+            return;
+        }
+
+        final PendingWrite pending = waiting.get(id);
+        if (pending == null) {
+            waiting.put(id, new PendingWrite(todo, promise));
+            return;
+        }
+
+        coalesced.run();
+        pending.todo = todo;
+        pending.promises.add(promise);
+    }
+
+    /**
+     * Ids with a write in flight.
+     */
+    int outstanding() {
+        return inFlight.size();
+    }
+
+    private void write(final PendingWrite write) {
+        final String id = write.todo.getId();
+        inFlight.put(id, write);
+
+        todoRepo.addTodo(write.todo)
+                .then(result -> {
+                    complete(id);
+                    write.promises.forEach(promise -> promise.resolve(result));
+                })
+                .catchError(error -> {
+                    logger.error("Unable to add todo {} to repo", id, error);
+                    complete(id);
+                    write.promises.forEach(promise -> promise.reject(error));
+                })
+                .invokeWithReactor(reactor);
+    }
+
+    private void complete(final String id) {
+        inFlight.remove(id);
+        final PendingWrite next = waiting.remove(id);
+        if (next != null) {
+            write(next);
+        }
+    }
+
+    private static class PendingWrite {
+        private Todo todo;
+        private final List<Promise<Boolean>> promises = new ArrayList<>(1);
+
+        private PendingWrite(final Todo todo, final Promise<Boolean> promise) {
+            this.todo = todo;
+            this.promises.add(promise);
+        }
+    }
+}
@@ -4,7 +4,20 @@ var config = {
     statsd: "udp://" + getDockerHost() + ":8125",
     cassandra: {
       uris: ["cassandra://" + getDockerHost() + ':' + 39042],
-      replicationFactor: 1
+      replicationFactor: 1,
+      preparedStatements: true,
+      slowQueryMillis: 200,
+      connection: {
+        localDc: "",
+        tokenAware: true,
+        coreConnectionsPerHost: 1,
+        maxConnectionsPerHost: 2,
+        maxRequestsPerConnection: 1024,
+        compression: "lz4",
+        readTimeoutMillis: 2000,
+        speculativeDelayMillis: 0,
+        speculativeExecutions: 0
+      }
     }
   }
 }
\ No newline at end of file
@@ -7,7 +7,20 @@ var config = {
         "cassandra://node-1.cassandra.mesos:9042",
         "cassandra://node-2.cassandra.mesos:9042"
       ],
-      replicationFactor: 2
+      replicationFactor: 2,
+      preparedStatements: true,
+      slowQueryMillis: 200,
+      connection: {
+        localDc: "",
+        tokenAware: true,
+        coreConnectionsPerHost: 2,
+        maxConnectionsPerHost: 8,
+        maxRequestsPerConnection: 1024,
+        compression: "lz4",
+        readTimeoutMillis: 2000,
+        speculativeDelayMillis: 50,
+        speculativeExecutions: 1
+      }
     }
   }
 };
@@ -0,0 +1,112 @@
+package io.advantageous.j1.reakt;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Reactor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class TodoServiceImplTest {
+
+    private final List<Promise<Boolean>> writes = new ArrayList<>();
+    private final Reactor reactor = Reactor.reactor();
+    private TodoRepo todoRepo;
+    private TodoServiceImpl todoService;
+
+    @Before
+    public void before() {
+        todoRepo = mock(TodoRepo.class, RETURNS_DEEP_STUBS);
+        when(todoRepo.connect()).thenReturn(invokablePromise(promise -> { }));
+        when(todoRepo.addTodo(any(Todo.class))).thenAnswer(invocation ->
+                invokablePromise((Promise<Boolean> promise) -> writes.add(promise)));
+
+        final ServiceManagementBundle mgmt = mock(ServiceManagementBundle.class, RETURNS_DEEP_STUBS);
+        when(mgmt.reactor()).thenReturn(reactor);
+        todoService = new TodoServiceImpl(mgmt, todoRepo);
+    }
+
+    @Test
+    public void testAddTodosWritesEveryTodoAtOnce() {
+        final Promise<Boolean> result = todoService.addTodos(asList(todo("a"), todo("b"), todo("c"))).invoke();
+
+        assertEquals(3, writes.size());
+        complete(0, true);
+        complete(2, true);
+        assertFalse("one write still in flight", result.complete());
+
+        complete(1, true);
+        assertTrue(result.success());
+    }
+
+    @Test
+    public void testAddTodosRejectsOnTheFirstFailedWrite() {
+        final Promise<Boolean> result = todoService.addTodos(asList(todo("a"), todo("b"))).invoke();
+
+        fail(0, new IllegalStateException("write timed out"));
+        assertTrue(result.failure());
+
+        complete(1, true);
+        assertTrue(result.failure());
+    }
+
+    @Test
+    public void testAddTodosCoalescesRepeatedIds() {
+        final Promise<Boolean> result = todoService.addTodos(asList(todo("a"), todo("a"), todo("b"))).invoke();
+
+        assertEquals(2, writes.size());
+        complete(0, true);
+        complete(1, true);
+        assertFalse("the repeated id waits for its own write", result.complete());
+
+        assertEquals(3, writes.size());
+        complete(2, true);
+        assertTrue(result.success());
+    }
+
+    @Test
+    public void testAddTodosRejectsNull() {
+        assertTrue(todoService.addTodos(null).invoke().failure());
+        assertTrue(todoService.addTodos(asList(todo("a"), null)).invoke().failure());
+        verify(todoRepo, never()).addTodo(any(Todo.class));
+    }
+
+    @Test
+    public void testAddTodosResolvesAnEmptyList() {
+        assertTrue(todoService.addTodos(emptyList()).invoke().success());
+        verify(todoRepo, never()).addTodo(any(Todo.class));
+    }
+
+    @Test
+    public void testAddTodoWritesStraightThrough() {
+        final Promise<Boolean> result = todoService.addTodo(todo("a")).invoke();
+
+        assertEquals("no waiting for a batch window", 1, writes.size());
+        complete(0, true);
+        assertTrue(result.success());
+    }
+
+    /** Completes a write, the results are handled once the reactor runs. */
+    private void complete(final int index, final boolean result) {
+        writes.get(index).resolve(result);
+        reactor.process();
+    }
+
+    private void fail(final int index, final Throwable error) {
+        writes.get(index).reject(error);
+        reactor.process();
+    }
+
+    private static Todo todo(final String id) {
+        return new Todo(id, id, 1L, id);
+    }
+}
@@ -0,0 +1,93 @@
+package io.advantageous.j1.reakt;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Reactor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class TodoWriteCoalescerTest {
+
+    private final List<Todo> written = new ArrayList<>();
+    private final List<Promise<Boolean>> writes = new ArrayList<>();
+    private final Reactor reactor = Reactor.reactor();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private TodoWriteCoalescer coalescer;
+
+    @Before
+    public void before() {
+        final TodoRepo todoRepo = mock(TodoRepo.class);
+        when(todoRepo.addTodo(any(Todo.class))).thenAnswer(invocation -> {
+            written.add((Todo) invocation.getArguments()[0]);
+            return invokablePromise((Promise<Boolean> promise) -> writes.add(promise));
+        });
+
+        coalescer = new TodoWriteCoalescer(todoRepo, reactor, coalesced::incrementAndGet);
+    }
+
+    @Test
+    public void testDifferentIdsAreWrittenAtOnce() {
+        coalescer.add(todo("a", "first"), promise(Boolean.class));
+        coalescer.add(todo("b", "first"), promise(Boolean.class));
+
+        assertEquals(2, writes.size());
+        assertEquals(2, coalescer.outstanding());
+    }
+
+    @Test
+    public void testWritesForAnIdInFlightAreCoalesced() {
+        final AtomicInteger resolved = new AtomicInteger();
+        coalescer.add(todo("a", "first"), promise(Boolean.class).then(result -> resolved.incrementAndGet()));
+        coalescer.add(todo("a", "second"), promise(Boolean.class).then(result -> resolved.incrementAndGet()));
+        coalescer.add(todo("a", "third"), promise(Boolean.class).then(result -> resolved.incrementAndGet()));
+
+        assertEquals(1, writes.size());
+        assertEquals(1, coalesced.get());
+
+        complete(0, true);
+        assertEquals(1, resolved.get());
+        assertEquals("only the latest waiting todo is written", 2, writes.size());
+        assertEquals("third", written.get(1).getDescription());
+
+        complete(1, true);
+        assertEquals(3, resolved.get());
+        assertEquals(0, coalescer.outstanding());
+    }
+
+    @Test
+    public void testFailedWriteRejectsItsCallersAndStartsTheNext() {
+        final AtomicInteger rejected = new AtomicInteger();
+        coalescer.add(todo("a", "first"), promise(Boolean.class).catchError(error -> rejected.incrementAndGet()));
+        coalescer.add(todo("a", "second"), promise(Boolean.class));
+
+        fail(0, new IllegalStateException("write timed out"));
+
+        assertEquals(1, rejected.get());
+        assertEquals(2, writes.size());
+        assertEquals("second", written.get(1).getDescription());
+    }
+
+    /** Completes a write, the results are handled once the reactor runs. */
+    private void complete(final int index, final boolean result) {
+        writes.get(index).resolve(result);
+        reactor.process();
+    }
+
+    private void fail(final int index, final Throwable error) {
+        writes.get(index).reject(error);
+        reactor.process();
+    }
+
+    private static Todo todo(final String id, final String description) {
+        return new Todo(id, description, 1L, id);
+    }
+}
@@ -0,0 +1,37 @@
+package com.datastax.driver.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds driver rows without a cluster, so row mapping can be benchmarked against the
+ * driver's own column lookup and decoding. Lives in the driver package because the row
+ * and column definition constructors are package private.
+ */
+public final class BenchmarkRows {
+
+    private BenchmarkRows() {
+    }
+
+    /**
+     * @param columns column name, {@link DataType} and value, repeated for every column.
+     */
+    public static Row row(final String keyspace, final String table, final Object... columns) {
+        final int count = columns.length / 3;
+        final ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[count];
+        final List<ByteBuffer> values = new ArrayList<>(count);
+
+        for (int index = 0; index < count; index++) {
+            final String name = (String) columns[index * 3];
+            final DataType type = (DataType) columns[index * 3 + 1];
+            final TypeCodec<Object> codec = CodecRegistry.DEFAULT_INSTANCE.codecFor(type);
+
+            definitions[index] = new ColumnDefinitions.Definition(keyspace, table, name, type);
+            values.add(codec.serialize(columns[index * 3 + 2], ProtocolVersion.V4));
+        }
+
+        return ArrayBackedRow.fromData(new ColumnDefinitions(definitions, CodecRegistry.DEFAULT_INSTANCE),
+                null, ProtocolVersion.V4, values);
+    }
+}
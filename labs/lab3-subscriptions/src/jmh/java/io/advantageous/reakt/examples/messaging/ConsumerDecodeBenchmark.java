@@ -0,0 +1,49 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.advantageous.boon.json.JsonFactory.fromJson;
+
+/**
+ * What the consumer does with one Kafka payload: the String compatibility path that
+ * decodes to a String and parses that, against decoding the bytes through a codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsumerDecodeBenchmark {
+
+    private final MessageCodec<String> stringCodec = MessageCodec.string();
+    private final MessageCodec<Message> jsonCodec = new JsonMessageCodec();
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        payload = jsonCodec.encode(new Message("asset-0000042 was added to the premium subscription"));
+    }
+
+    @Benchmark
+    public Message stringThenJson() {
+        return fromJson(stringCodec.decode(payload), Message.class);
+    }
+
+    @Benchmark
+    public Message jsonCodec() {
+        return jsonCodec.decode(payload);
+    }
+}
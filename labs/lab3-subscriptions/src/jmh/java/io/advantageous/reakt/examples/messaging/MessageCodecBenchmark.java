@@ -0,0 +1,67 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of the JSON and binary message codecs. The payload sizes
+ * are checked by BinaryMessageCodecTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    private final MessageCodec<Message> json = new JsonMessageCodec();
+    private final MessageCodec<Message> binary = new BinaryMessageCodec();
+    private final MessageCodec<Message> detecting = new DetectingMessageCodec("binary");
+    private Message message;
+    private byte[] jsonPayload;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setup() {
+        message = new Message("asset-0000042 was added to the premium subscription");
+        jsonPayload = json.encode(message);
+        binaryPayload = binary.encode(message);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.encode(message);
+    }
+
+    @Benchmark
+    public Message jsonDecode() {
+        return json.decode(jsonPayload);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binary.encode(message);
+    }
+
+    @Benchmark
+    public Message binaryDecode() {
+        return binary.decode(binaryPayload);
+    }
+
+    @Benchmark
+    public Message detectingDecode() {
+        return detecting.decode(binaryPayload);
+    }
+}
@@ -0,0 +1,63 @@
+package io.advantageous.reakt.examples.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.advantageous.boon.json.JsonFactory.fromJson;
+import static io.advantageous.boon.json.JsonFactory.toJson;
+
+/**
+ * Boon JSON round trips of the models that go over Kafka and HTTP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private Message message;
+    private String messageJson;
+    private Subscription subscription;
+    private String subscriptionJson;
+
+    @Setup
+    public void setup() {
+        message = new Message("asset-0000042 was added to the premium subscription");
+        messageJson = toJson(message);
+        subscription = new Subscription("0b3bd5e6-6b1f-4d4e-9d8a-5c2f1f3c8a11", "premium",
+                "tp-0000042", 1473000000000L);
+        subscriptionJson = toJson(subscription);
+    }
+
+    @Benchmark
+    public String messageToJson() {
+        return toJson(message);
+    }
+
+    @Benchmark
+    public Message messageFromJson() {
+        return fromJson(messageJson, Message.class);
+    }
+
+    @Benchmark
+    public String subscriptionToJson() {
+        return toJson(subscription);
+    }
+
+    @Benchmark
+    public Subscription subscriptionFromJson() {
+        return fromJson(subscriptionJson, Subscription.class);
+    }
+}
@@ -0,0 +1,92 @@
+package io.advantageous.reakt.examples.repository;
+
+import com.datastax.driver.core.BenchmarkRows;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+import io.advantageous.reakt.examples.model.Asset;
+import io.advantageous.reakt.examples.model.Entitlement;
+import io.advantageous.reakt.examples.model.Subscription;
+import io.advantageous.reakt.examples.template.RowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps one row with each repository's {@link RowMapper}, which are generated and read the
+ * columns by index, and the subscription row with a hand written mapper that looks every
+ * column up by name for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final Date CREATE_TIME = new Date(1473000000000L);
+
+    private RowMapper<Subscription> subscriptionMapper;
+    private RowMapper<Asset> assetMapper;
+    private RowMapper<Entitlement> entitlementMapper;
+    private RowMapper<Subscription> subscriptionByNameMapper;
+    private Row subscriptionRow;
+    private Row assetRow;
+    private Row entitlementRow;
+
+    @Setup
+    public void setup() {
+        subscriptionMapper = new SubscriptionRepository(1, Collections.emptyList()).map();
+        assetMapper = new AssetRepository(1, Collections.emptyList()).map();
+        entitlementMapper = new EntitlementRepository(1, Collections.emptyList()).map();
+        subscriptionByNameMapper = row -> new Subscription(row.getString("id"), row.getString("name"),
+                row.getString("thirdPartyId"), row.getTimestamp("createTime").getTime());
+
+        subscriptionRow = BenchmarkRows.row("subscriptionkeyspace", "subscription",
+                "id", DataType.text(), "0b3bd5e6-6b1f-4d4e-9d8a-5c2f1f3c8a11",
+                "createtime", DataType.timestamp(), CREATE_TIME,
+                "name", DataType.text(), "premium",
+                "thirdpartyid", DataType.text(), "tp-0000042");
+
+        assetRow = BenchmarkRows.row("assetkeyspace", "asset",
+                "id", DataType.text(), "asset-0000042",
+                "createtime", DataType.timestamp(), CREATE_TIME,
+                "name", DataType.text(), "feature film");
+
+        entitlementRow = BenchmarkRows.row("entitlementkeyspace", "entitlement",
+                "asset_id", DataType.text(), "asset-0000042",
+                "subscription_id", DataType.text(), "0b3bd5e6-6b1f-4d4e-9d8a-5c2f1f3c8a11",
+                "createtime", DataType.timestamp(), CREATE_TIME);
+    }
+
+    @Benchmark
+    public Subscription mapSubscription() {
+        return subscriptionMapper.map(subscriptionRow);
+    }
+
+    @Benchmark
+    public Subscription mapSubscriptionByName() {
+        return subscriptionByNameMapper.map(subscriptionRow);
+    }
+
+    @Benchmark
+    public Asset mapAsset() {
+        return assetMapper.map(assetRow);
+    }
+
+    @Benchmark
+    public Entitlement mapEntitlement() {
+        return entitlementMapper.map(entitlementRow);
+    }
+}
@@ -0,0 +1,76 @@
+package io.advantageous.reakt.examples.service;
+
+import io.advantageous.reakt.examples.model.Subscription;
+import io.advantageous.reakt.promise.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+
+/**
+ * The invokablePromise then/catchError chain the services wrap around every repository
+ * call, with a repository that answers at once so only the promise overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromiseChainBenchmark {
+
+    private Subscription subscription;
+
+    @Setup
+    public void setup() {
+        subscription = new Subscription("0b3bd5e6-6b1f-4d4e-9d8a-5c2f1f3c8a11", "premium",
+                "tp-0000042", 1473000000000L);
+    }
+
+    @Benchmark
+    public void resolved(final Blackhole blackhole) {
+        retrieve(find(true))
+                .then(blackhole::consume)
+                .catchError(blackhole::consume)
+                .invoke();
+    }
+
+    @Benchmark
+    public void rejected(final Blackhole blackhole) {
+        retrieve(find(false))
+                .then(blackhole::consume)
+                .catchError(blackhole::consume)
+                .invoke();
+    }
+
+    /**
+     * Same shape as {@link SubscriptionServiceImpl#retrieve(String)} without the logging.
+     */
+    private Promise<Subscription> retrieve(final Promise<Subscription> found) {
+        return invokablePromise(promise ->
+                found.then(promise::resolve)
+                        .catchError(error -> promise.reject("Unable to find subscription"))
+                        .invoke());
+    }
+
+    private Promise<Subscription> find(final boolean found) {
+        return invokablePromise(promise -> {
+            if (found) {
+                promise.resolve(subscription);
+            } else {
+                promise.reject("Entity not found");
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package io.advantageous.reakt.examples.cache;
+
+/**
+ * Bloom filter over 64 bit hashes.
+ *
+ * The bit count and number of probes are sized from the expected entries and the wanted
+ * false positive rate. The probes are derived from the one hash by double hashing, so
+ * callers hash their key once. Not thread safe.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int probes;
+
+    BloomFilter(final int expectedEntries, final double falsePositiveRate) {
+        final int entries = Math.max(1, expectedEntries);
+        final double ln2 = Math.log(2);
+        final long wantedBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (ln2 * ln2));
+
+        this.bits = new long[(int) Math.max(1, (wantedBits + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.probes = Math.max(1, (int) Math.round((double) bitCount / entries * ln2));
+    }
+
+    void add(final long hash) {
+        long combined = hash;
+        final long step = step(hash);
+        for (int probe = 0; probe < probes; probe++) {
+            final long index = (combined & Long.MAX_VALUE) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+            combined += step;
+        }
+    }
+
+    boolean mightContain(final long hash) {
+        long combined = hash;
+        final long step = step(hash);
+        for (int probe = 0; probe < probes; probe++) {
+            final long index = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += step;
+        }
+        return true;
+    }
+
+    int probes() {
+        return probes;
+    }
+
+    private static long step(final long hash) {
+        return Long.rotateLeft(hash, 32) | 1;
+    }
+}
@@ -0,0 +1,61 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and eviction counters of an {@link EntityCache}.
+ */
+public class CacheStats {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long reportedHits;
+    private long reportedMisses;
+    private long reportedEvictions;
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    void eviction() {
+        evictions.incrementAndGet();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Sends the counts since the last report as {@code prefix.hit}, {@code prefix.miss}
+     * and {@code prefix.eviction}. Call it from the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        reportedHits = report(mgmt, prefix + ".hit", hits.get(), reportedHits);
+        reportedMisses = report(mgmt, prefix + ".miss", misses.get(), reportedMisses);
+        reportedEvictions = report(mgmt, prefix + ".eviction", evictions.get(), reportedEvictions);
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+}
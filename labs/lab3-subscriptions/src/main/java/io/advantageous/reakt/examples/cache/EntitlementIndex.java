@@ -0,0 +1,171 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.config.Config;
+
+/**
+ * In-process index of which (asset, subscription) pairs have an entitlement.
+ *
+ * Pairs are hashed to 64 bits and kept in a bloom filter and a primitive hash set. A pair
+ * missing from either one is definitely not entitled, so most negative checks never leave
+ * the process. A pair found in both is only probably entitled, hashes can collide and the
+ * bloom filter cannot forget removed pairs, so positives must still be confirmed against
+ * the repository.
+ *
+ * The index knows nothing until its first load completes. A reload builds a fresh filter
+ * and set next to the current ones and swaps them in when done; adds and removes made
+ * while loading go to both. A pair removed while loading is not loaded again by that load,
+ * the page it comes in may have been read before the remove.
+ */
+public class EntitlementIndex {
+
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private Snapshot current;
+    private Snapshot loading;
+    private LongHashSet removedWhileLoading;
+    private long loadedAt;
+
+    public EntitlementIndex(final int expectedEntries, final double falsePositiveRate) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Reads {@code expectedEntries} and {@code falsePositiveRate}.
+     */
+    public static EntitlementIndex fromConfig(final Config config) {
+        return new EntitlementIndex(config.getInt("expectedEntries"), config.getDouble("falsePositiveRate"));
+    }
+
+    /**
+     * @return false only if the index is loaded and the pair is definitely not entitled.
+     */
+    public synchronized boolean mightContain(final String assetId, final String subscriptionId) {
+        return current == null || current.contains(hash(assetId, subscriptionId));
+    }
+
+    public synchronized void add(final String assetId, final String subscriptionId) {
+        final long hash = hash(assetId, subscriptionId);
+        if (current != null) {
+            current.add(hash);
+        }
+        if (loading != null) {
+            loading.add(hash);
+            removedWhileLoading.remove(hash);
+        }
+    }
+
+    public synchronized void remove(final String assetId, final String subscriptionId) {
+        final long hash = hash(assetId, subscriptionId);
+        if (current != null) {
+            current.remove(hash);
+        }
+        if (loading != null) {
+            loading.remove(hash);
+            removedWhileLoading.add(hash);
+        }
+    }
+
+    /**
+     * Starts a load, pairs passed to {@link #loaded(String, String)} are not visible to
+     * checks until {@link #endLoad(long)}.
+     *
+     * @return false if a load is already running.
+     */
+    public synchronized boolean beginLoad() {
+        if (loading != null) {
+            return false;
+        }
+        loading = new Snapshot(Math.max(expectedEntries, size()), falsePositiveRate);
+        removedWhileLoading = new LongHashSet(16);
+        return true;
+    }
+
+    public synchronized void loaded(final String assetId, final String subscriptionId) {
+        final long hash = hash(assetId, subscriptionId);
+        if (loading != null && !removedWhileLoading.contains(hash)) {
+            loading.add(hash);
+        }
+    }
+
+    public synchronized void endLoad(final long now) {
+        if (loading != null) {
+            current = loading;
+            loading = null;
+            removedWhileLoading = null;
+            loadedAt = now;
+        }
+    }
+
+    /**
+     * Drops a failed load, the previous version, if any, stays in use.
+     */
+    public synchronized void abortLoad() {
+        loading = null;
+        removedWhileLoading = null;
+    }
+
+    public synchronized boolean isLoaded() {
+        return current != null;
+    }
+
+    public synchronized boolean isLoading() {
+        return loading != null;
+    }
+
+    public synchronized long loadedAt() {
+        return loadedAt;
+    }
+
+    public synchronized int size() {
+        return current == null ? 0 : current.set.size();
+    }
+
+    /**
+     * 64 bit FNV-1a over both ids, with the asset id length mixed in so the split between
+     * the two ids is part of the hash, then the Murmur3 finalizer to spread the bits.
+     */
+    static long hash(final String assetId, final String subscriptionId) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, assetId);
+        hash = (hash ^ assetId.length()) * 0x100000001b3L;
+        hash = fnv(hash, subscriptionId);
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long fnv(long hash, final String value) {
+        for (int index = 0; index < value.length(); index++) {
+            hash = (hash ^ value.charAt(index)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class Snapshot {
+        private final BloomFilter bloomFilter;
+        private final LongHashSet set;
+
+        private Snapshot(final int expectedEntries, final double falsePositiveRate) {
+            this.bloomFilter = new BloomFilter(expectedEntries, falsePositiveRate);
+            this.set = new LongHashSet(expectedEntries);
+        }
+
+        private void add(final long hash) {
+            bloomFilter.add(hash);
+            set.add(hash);
+        }
+
+        private void remove(final long hash) {
+            set.remove(hash);
+        }
+
+        private boolean contains(final long hash) {
+            return bloomFilter.mightContain(hash) && set.contains(hash);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.reakt.Expected;
+import io.advantageous.reakt.examples.template.EntityNotFoundException;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.function.Consumer;
+
+import static io.advantageous.reakt.promise.Promises.promise;
+
+/**
+ * Cache that sits between a repository and its {@code Storage}.
+ *
+ * Misses can be cached too, so a lookup for a key that does not exist does not go
+ * to Cassandra every time. Writes must call {@link #invalidate(Object)}, which also moves
+ * the key to a new generation. Loads take the generation before they read and cache with
+ * {@link #put(Object, Object, long)}, so a load that overlapped a write is not cached.
+ */
+public interface EntityCache<K, V> {
+
+    /**
+     * @return null when nothing is cached for the key, empty when a miss is cached,
+     * otherwise the cached entity.
+     */
+    Expected<V> get(K key);
+
+    void put(K key, V value);
+
+    void putMissing(K key);
+
+    void invalidate(K key);
+
+    /**
+     * Changes whenever the key is invalidated.
+     */
+    long generation(K key);
+
+    /**
+     * Caches the value only if the key was not invalidated since the generation was taken.
+     */
+    void put(K key, V value, long generation);
+
+    /**
+     * Caches the miss only if the key was not invalidated since the generation was taken.
+     */
+    void putMissing(K key, long generation);
+
+    CacheStats stats();
+
+    /**
+     * Resolves the promise from the cache, or calls the loader and caches its outcome.
+     * Loaders reject with {@link EntityNotFoundException} when the entity does not exist.
+     */
+    default void find(final K key, final Promise<V> promise, final Consumer<Promise<V>> loader) {
+        final Expected<V> cached = get(key);
+
+        if (cached != null) {
+            if (cached.isPresent()) {
+                promise.resolve(cached.get());
+            } else {
+                promise.reject(new EntityNotFoundException("Entity not found " + key));
+            }
+            return;
+        }
+
+        final long generation = generation(key);
+        final Promise<V> loaded = promise();
+        loader.accept(loaded
+                .then(value -> {
+                    put(key, value, generation);
+                    promise.resolve(value);
+                })
+                .catchError(error -> {
+                    if (error instanceof EntityNotFoundException) {
+                        putMissing(key, generation);
+                    }
+                    promise.reject(error);
+                }));
+    }
+
+    /**
+     * Wraps the promise of a write so the key is invalidated when the write is sent
+     * and again when it completes. Both move the key to a new generation, so a load that
+     * read before the write completed does not cache what it read.
+     */
+    default <T> Promise<T> invalidating(final K key, final Promise<T> promise) {
+        invalidate(key);
+        final Promise<T> write = promise();
+        return write
+                .then(result -> {
+                    invalidate(key);
+                    promise.resolve(result);
+                })
+                .catchError(error -> {
+                    invalidate(key);
+                    promise.reject(error);
+                });
+    }
+
+    static <K, V> EntityCache<K, V> noCache() {
+        return new NoEntityCache<>();
+    }
+}
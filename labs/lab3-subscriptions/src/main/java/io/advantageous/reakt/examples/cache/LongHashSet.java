@@ -0,0 +1,107 @@
+package io.advantageous.reakt.examples.cache;
+
+/**
+ * Open addressing set of primitive longs, no boxing and one array.
+ *
+ * Uses linear probing and backward shift on remove so there are no tombstones. Zero marks
+ * an empty slot, so a zero key is stored as one; fine for hashes. Not thread safe.
+ */
+final class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] slots;
+    private int size;
+
+    LongHashSet(final int expectedEntries) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedEntries) {
+            capacity <<= 1;
+        }
+        slots = new long[capacity];
+    }
+
+    boolean add(final long value) {
+        final long key = key(value);
+        final int mask = slots.length - 1;
+        int index = index(key, mask);
+
+        while (slots[index] != 0) {
+            if (slots[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        slots[index] = key;
+        if (++size > slots.length * LOAD_FACTOR) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(final long value) {
+        final long key = key(value);
+        final int mask = slots.length - 1;
+        int index = index(key, mask);
+
+        while (slots[index] != 0) {
+            if (slots[index] == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean remove(final long value) {
+        final long key = key(value);
+        final int mask = slots.length - 1;
+        int index = index(key, mask);
+
+        while (slots[index] != key) {
+            if (slots[index] == 0) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        /* Shift the rest of the probe run back so lookups never stop early at a hole. */
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            final int home = index(slots[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        final long[] old = slots;
+        slots = new long[old.length << 1];
+        size = 0;
+        for (final long key : old) {
+            if (key != 0) {
+                add(key);
+            }
+        }
+    }
+
+    private static long key(final long value) {
+        return value == 0 ? 1 : value;
+    }
+
+    private static int index(final long key, final int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,137 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.config.Config;
+import io.advantageous.reakt.Expected;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Size bounded {@link EntityCache} that evicts the least recently used entry.
+ *
+ * Entities live for the TTL, cached misses for the miss TTL which is usually much shorter.
+ * Expired entries count as misses and are dropped on read.
+ *
+ * Generations are kept per stripe of keys so they take fixed memory. Keys in the same stripe
+ * share a generation, an invalidation then only keeps a racing load of a neighbour out too.
+ */
+public class LruEntityCache<K, V> implements EntityCache<K, V> {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final long ttlMillis;
+    private final long missTtlMillis;
+    private final LongSupplier clock;
+    private final CacheStats stats = new CacheStats();
+    private final Map<K, Entry<V>> entries;
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    public LruEntityCache(final int maxSize, final Duration ttl, final Duration missTtl) {
+        this(maxSize, ttl, missTtl, System::currentTimeMillis);
+    }
+
+    LruEntityCache(final int maxSize, final Duration ttl, final Duration missTtl, final LongSupplier clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.missTtlMillis = missTtl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    stats.eviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Reads {@code maxSize}, {@code ttlMillis} and {@code missTtlMillis}.
+     */
+    public static <K, V> LruEntityCache<K, V> fromConfig(final Config config) {
+        return new LruEntityCache<>(config.getInt("maxSize"),
+                Duration.ofMillis(config.getInt("ttlMillis")),
+                Duration.ofMillis(config.getInt("missTtlMillis")));
+    }
+
+    @Override
+    public synchronized Expected<V> get(final K key) {
+        final Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            stats.miss();
+            return null;
+        }
+
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            stats.miss();
+            return null;
+        }
+
+        stats.hit();
+        return entry.value == null ? Expected.empty() : Expected.of(entry.value);
+    }
+
+    @Override
+    public synchronized void put(final K key, final V value) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+    }
+
+    @Override
+    public synchronized void putMissing(final K key) {
+        entries.put(key, new Entry<>(null, clock.getAsLong() + missTtlMillis));
+    }
+
+    @Override
+    public synchronized long generation(final K key) {
+        return generations[stripe(key)];
+    }
+
+    @Override
+    public synchronized void put(final K key, final V value, final long generation) {
+        if (generations[stripe(key)] == generation) {
+            put(key, value);
+        }
+    }
+
+    @Override
+    public synchronized void putMissing(final K key, final long generation) {
+        if (generations[stripe(key)] == generation) {
+            putMissing(key);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(final K key) {
+        generations[stripe(key)]++;
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+
+    private static int stripe(final Object key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.reakt.Expected;
+
+/**
+ * Cache that never holds anything, every find goes to the loader.
+ */
+class NoEntityCache<K, V> implements EntityCache<K, V> {
+
+    private final CacheStats stats = new CacheStats();
+
+    @Override
+    public Expected<V> get(final K key) {
+        stats.miss();
+        return null;
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+    }
+
+    @Override
+    public void putMissing(final K key) {
+    }
+
+    @Override
+    public long generation(final K key) {
+        return 0;
+    }
+
+    @Override
+    public void put(final K key, final V value, final long generation) {
+    }
+
+    @Override
+    public void putMissing(final K key, final long generation) {
+    }
+
+    @Override
+    public void invalidate(final K key) {
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+}
@@ -3,13 +3,20 @@ package io.advantageous.reakt.examples.main;
 import io.advantageous.config.Config;
 import io.advantageous.qbit.admin.ManagedServiceBuilder;
 import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.examples.cache.EntitlementIndex;
+import io.advantageous.reakt.examples.cache.LruEntityCache;
 import io.advantageous.reakt.examples.repository.AssetRepository;
 import io.advantageous.reakt.examples.repository.EntitlementRepository;
 import io.advantageous.reakt.examples.repository.SubscriptionRepository;
 import io.advantageous.reakt.examples.service.*;
+import io.advantageous.reakt.examples.template.CassandraStorageFactory;
+import io.advantageous.reakt.examples.template.ConnectionProfile;
+import io.advantageous.reakt.examples.template.StorageFactory;
+import io.advantageous.reakt.examples.template.memory.InMemoryDatabase;
 import io.advantageous.reakt.examples.util.ConfigUtils;
 
 import java.net.URI;
+import java.time.Duration;
 
 import static io.advantageous.qbit.admin.ManagedServiceBuilder.managedServiceBuilder;
 import static io.advantageous.qbit.admin.ServiceManagementBundleBuilder.serviceManagementBundleBuilder;
@@ -23,6 +30,12 @@ public class Main {
     private static final String STATSD_ADDRESS     = "udp://192.168.99.100:8125";
     private static final String REPLICATION_FACTOR = "cassandra.replicationFactor";
     private static final String URIS               = "cassandra.uris";
+    private static final String PREPARED           = "cassandra.preparedStatements";
+    private static final String SLOW_QUERY_MILLIS  = "cassandra.slowQueryMillis";
+    private static final String CONNECTION         = "cassandra.connection";
+    private static final String CACHE              = "cache.";
+    private static final String ENTITLEMENT_INDEX  = "entitlementIndex";
+    private static final String STORAGE            = "storage";
 
 
     public static void main(final String... args) throws Exception {
@@ -40,26 +53,30 @@ public class Main {
                 .setServiceName(SubscriptionServiceImpl.class.getSimpleName())
                 .setManagedServiceBuilder(managedServiceBuilder).build();
 
+        final StorageFactory storageFactory = storageFactory(config);
+
         final SubscriptionRepository subscriptionRepository =
-                new SubscriptionRepository(config.getInt(REPLICATION_FACTOR),
-                        config.getUriList(URIS));
+                new SubscriptionRepository(storageFactory,
+                        LruEntityCache.fromConfig(config.getConfig(CACHE + "subscription")));
 
         final SubscriptionService subscriptionService =
                 new SubscriptionServiceImpl(serviceManagementBundle, subscriptionRepository);
 
         final AssetRepository assetRepository =
-                new AssetRepository(config.getInt(REPLICATION_FACTOR),
-                        config.getUriList(URIS));
+                new AssetRepository(storageFactory,
+                        LruEntityCache.fromConfig(config.getConfig(CACHE + "asset")));
 
         final AssetService assetService =
                 new AssetServiceImpl(serviceManagementBundle, assetRepository);
 
         final EntitlementRepository entitlementRepository =
-                new EntitlementRepository(config.getInt(REPLICATION_FACTOR),
-                        config.getUriList(URIS));
+                new EntitlementRepository(storageFactory,
+                        LruEntityCache.fromConfig(config.getConfig(CACHE + "entitlement")));
 
         final EntitlementService entitlementService =
-                new EntitlementServiceImpl(serviceManagementBundle, entitlementRepository);
+                new EntitlementServiceImpl(serviceManagementBundle, entitlementRepository,
+                        EntitlementIndex.fromConfig(config.getConfig(ENTITLEMENT_INDEX)),
+                        Duration.ofMinutes(config.getInt(ENTITLEMENT_INDEX + ".reloadMinutes")));
 
         final MessageService messageService =
                 new MessageServiceImpl(serviceManagementBundle);
@@ -76,4 +93,16 @@ public class Main {
         System.out.println("Server and Admin Server started");
 
     }
+
+    /**
+     * Cassandra, or with storage.type "memory" an in-memory database for load tests.
+     */
+    private static StorageFactory storageFactory(final Config config) {
+        if ("memory".equals(config.getString(STORAGE + ".type"))) {
+            return InMemoryDatabase.fromConfig(config.getConfig(STORAGE));
+        }
+        return new CassandraStorageFactory(config.getInt(REPLICATION_FACTOR),
+                config.getUriList(URIS), config.getBoolean(PREPARED), config.getInt(SLOW_QUERY_MILLIS),
+                ConnectionProfile.fromConfig(config.getConfig(CONNECTION)));
+    }
 }
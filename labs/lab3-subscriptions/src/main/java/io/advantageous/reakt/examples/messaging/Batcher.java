@@ -0,0 +1,85 @@
+package io.advantageous.reakt.examples.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Collects the messages of one consumer worker into batches. A batch is handed on when it
+ * reaches the max size, or when its first message has waited the max wait, whichever comes
+ * first. Batches are handed on under the lock, so they stay in the order Kafka returned.
+ */
+final class Batcher<T> {
+
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final ScheduledExecutorService timer;
+    private final Predicate<List<T>> sink;
+
+    private List<T> batch;
+    private ScheduledFuture<?> timeout;
+    private boolean open = true;
+
+    /**
+     * @param sink gets every full or timed out batch, and returns false to stop batching.
+     */
+    Batcher(final int maxSize, final long maxWaitMs, final ScheduledExecutorService timer,
+            final Predicate<List<T>> sink) {
+        this.maxSize = maxSize;
+        this.maxWaitMs = maxWaitMs;
+        this.timer = timer;
+        this.sink = sink;
+        this.batch = new ArrayList<>(maxSize);
+    }
+
+    /**
+     * @return false once the sink asked to stop.
+     */
+    synchronized boolean add(final T value) {
+        if (!open) {
+            return false;
+        }
+
+        if (batch.isEmpty()) {
+            final List<T> started = batch;
+            timeout = timer.schedule(() -> flush(started), maxWaitMs, TimeUnit.MILLISECONDS);
+        }
+        batch.add(value);
+        return batch.size() < maxSize || flush();
+    }
+
+    /**
+     * Hands on what has been collected so far.
+     *
+     * @return false once the sink asked to stop.
+     */
+    synchronized boolean flush() {
+        if (!open) {
+            return false;
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+        final List<T> full = batch;
+        batch = new ArrayList<>(maxSize);
+        open = sink.test(full);
+        return open;
+    }
+
+    /**
+     * Flushes from the timer, unless the batch it was started for has already gone.
+     */
+    private synchronized void flush(final List<T> started) {
+        if (batch == started) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Compact binary layout for {@link Message}:
+ *
+ * <pre>
+ * magic     1 byte, {@link #MAGIC}, never the first byte of JSON
+ * flags     1 byte, which of the fields below are present and how the id is stored
+ * id        two longs for a canonical UUID, else a varint length and UTF-8 bytes
+ * createTime zig-zag varint
+ * message   varint length and UTF-8 bytes
+ * </pre>
+ *
+ * Decode through {@link DetectingMessageCodec} while producers move from JSON.
+ */
+public class BinaryMessageCodec implements MessageCodec<Message> {
+
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private static final int ID_UUID = 1;
+    private static final int ID_TEXT = 1 << 1;
+    private static final int HAS_MESSAGE = 1 << 2;
+
+    @Override
+    public byte[] encode(final Message message) {
+        final String id = message.getId();
+        final UUID uuid = uuid(id);
+        final byte[] idBytes = uuid == null ? id.getBytes(StandardCharsets.UTF_8) : null;
+        final byte[] text = message.getMessage() == null ? null :
+                message.getMessage().getBytes(StandardCharsets.UTF_8);
+        final long createTime = zigZag(message.getCreateTime());
+
+        int size = 2 + varintSize(createTime);
+        size += uuid != null ? 16 : varintSize(idBytes.length) + idBytes.length;
+        if (text != null) {
+            size += varintSize(text.length) + text.length;
+        }
+
+        final byte[] bytes = new byte[size];
+        bytes[0] = MAGIC;
+        bytes[1] = (byte) ((uuid != null ? ID_UUID : ID_TEXT) | (text != null ? HAS_MESSAGE : 0));
+        int position = 2;
+
+        if (uuid != null) {
+            position = writeLong(bytes, position, uuid.getMostSignificantBits());
+            position = writeLong(bytes, position, uuid.getLeastSignificantBits());
+        } else {
+            position = writeBytes(bytes, position, idBytes);
+        }
+        position = writeVarint(bytes, position, createTime);
+        if (text != null) {
+            writeBytes(bytes, position, text);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Message decode(final byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != MAGIC) {
+            throw new IllegalArgumentException("Not a binary message, first byte is "
+                    + (bytes.length == 0 ? "missing" : Integer.toHexString(bytes[0] & 0xFF)));
+        }
+
+        final int flags = bytes[1];
+        final Reader reader = new Reader(bytes, 2);
+        final Message message = new Message();
+
+        if ((flags & ID_UUID) != 0) {
+            message.setId(new UUID(reader.readLong(), reader.readLong()).toString());
+        } else {
+            message.setId(reader.readString());
+        }
+        message.setCreateTime(unZigZag(reader.readVarint()));
+        message.setMessage((flags & HAS_MESSAGE) != 0 ? reader.readString() : null);
+        return message;
+    }
+
+    /**
+     * The id as a UUID if it is one in canonical form, so it reads back the same.
+     */
+    private static UUID uuid(final String id) {
+        if (id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-'
+                || id.charAt(18) != '-' || id.charAt(23) != '-') {
+            return null;
+        }
+        for (int index = 0; index < id.length(); index++) {
+            final char c = id.charAt(index);
+            if (c != '-' && (c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return null;
+            }
+        }
+        return UUID.fromString(id);
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(final byte[] bytes, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int writeLong(final byte[] bytes, int position, final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[position++] = (byte) (value >>> shift);
+        }
+        return position;
+    }
+
+    private static int writeBytes(final byte[] bytes, final int position, final byte[] value) {
+        final int start = writeVarint(bytes, position, value.length);
+        System.arraycopy(value, 0, bytes, start, value.length);
+        return start + value.length;
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(final byte[] bytes, final int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private long readLong() {
+            check(8);
+            long value = 0;
+            for (int index = 0; index < 8; index++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                check(1);
+                final byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + position);
+        }
+
+        private String readString() {
+            final long length = readVarint();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("String of " + length + " bytes does not fit at " + position);
+            }
+            final String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        private void check(final int needed) {
+            if (bytes.length - position < needed) {
+                throw new IllegalArgumentException("Message truncated at " + position);
+            }
+        }
+    }
+}
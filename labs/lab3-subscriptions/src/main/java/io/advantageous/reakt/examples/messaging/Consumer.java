@@ -6,12 +6,26 @@ import io.advantageous.reakt.examples.util.ConfigUtils;
 import io.advantageous.reakt.promise.Promise;
 import kafka.consumer.ConsumerConfig;
 import kafka.consumer.KafkaStream;
+import kafka.message.MessageAndMetadata;
 import kafka.javaapi.consumer.ConsumerConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
@@ -19,11 +33,24 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
  * Created by jasondaniel on 9/13/16.
  */
 public class Consumer {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final ExecutorService executor;
     private final ConsumerConnector consumer;
     private static String zookeeperConnect;
     private static String groupId;
     private int partitions;
+    private int credits;
+    private int batchMaxSize;
+    private long batchMaxWaitMs;
+    private static boolean atLeastOnce;
+    private int commitMaxMessages;
+    private long commitMaxWaitMs;
+    private final ScheduledExecutorService timer;
+    private final OffsetCommitter committer;
+    private final ConsumerStats stats = new ConsumerStats();
+    private final List<Credits> openCredits = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile BiFunction<byte[], Exception, Promise<?>> undecodable;
 
 
     public Consumer() {
@@ -33,25 +60,284 @@ public class Consumer {
         consumer = kafka.consumer
                         .Consumer
                         .createJavaConsumerConnector(ConsumerConfig());
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "kafka-consumer-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (atLeastOnce) {
+            committer = new OffsetCommitter(consumer::commitOffsets, commitMaxMessages, commitMaxWaitMs, timer, stats);
+            /* Zero turns the timer off, commits are then only due every maxMessages. */
+            if (commitMaxWaitMs > 0) {
+                timer.scheduleAtFixedRate(committer::tick, commitMaxWaitMs, commitMaxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            committer = new OffsetCommitter(() -> { }, Integer.MAX_VALUE, Long.MAX_VALUE, timer, stats);
+        }
     }
 
+    /**
+     * Hands out every payload as a UTF-8 String. Kept for callers that parse the String
+     * themselves, new code should use {@link #consume(String, MessageCodec, Stream)}.
+     * Handlers written for this mode never ask for more, so it is not flow controlled.
+     */
     public Promise<Boolean> consume(String topic, Stream<String> stream) {
-        return invokablePromise(promise -> {
-            KafkaStream<byte[], byte[]> kafkaStream =
-                    consumer.createMessageStreams(
-                            new HashMap<String, Integer>(){
-                                {
-                                    put(topic, 1);
-                                }
-                            }
-                    ).get(topic).get(0);
-
-            executor.submit(() -> kafkaStream.forEach(
-                    data -> stream.reply(new String(data.message()))));
-        });
+        return consume(topic, MessageCodec.string(), 0, stream);
+    }
+
+    /**
+     * Asks for one stream per configured partition and reads each on its own worker thread,
+     * so consumption scales with the partition count. Kafka gives every partition to exactly
+     * one stream, so messages with the same key are still handled in order. The handler is
+     * called from all workers at once and must be thread safe. A consumer reads one topic
+     * with one of these methods, a second call is rejected.
+     *
+     * Payloads are decoded by the codec straight from the bytes Kafka returned. A payload
+     * the codec cannot decode is logged and skipped.
+     *
+     * At most {@code consumer.credits} messages are handed out before the handler asks for
+     * more with {@code result.request(n)}, the workers stop fetching until it does. Zero
+     * turns flow control off.
+     */
+    public <T> Promise<Boolean> consume(String topic, MessageCodec<T> codec, Stream<T> stream) {
+        return consume(topic, codec, credits, stream);
+    }
+
+    /**
+     * Hands the decoded messages to the handler in batches, so it can process a batch
+     * with one async operation. Every worker collects its own batches and hands one on
+     * when it holds {@code consumer.batch.maxSize} messages or its first message has waited
+     * {@code consumer.batch.maxWaitMs}. Batches of one worker are handed on in order.
+     *
+     * The credit window counts batches in this mode, the handler asks for more with
+     * {@code result.request(n)} as in {@link #consume(String, MessageCodec, Stream)}.
+     */
+    public <T> Promise<Boolean> consumeBatches(String topic, MessageCodec<T> codec, Stream<List<T>> stream) {
+        return invokablePromise(promise -> start(topic, promise, () -> {
+            final Predicate<List<T>> replier = replier(stream, credits, List::size);
+
+            return kafkaStream -> {
+                final Batcher<T> batcher = new Batcher<>(batchMaxSize, batchMaxWaitMs, timer, replier);
+                if (deliver(kafkaStream, codec, 0, batcher::add)) {
+                    batcher.flush();
+                }
+            };
+        }));
+    }
+
+    /**
+     * Calls the handler for every decoded message, the handler returns an invokable promise
+     * that the consumer invokes, as the repositories do. With {@code consumer.commit.atLeastOnce}
+     * offsets are committed only after the promises of every message taken so far completed,
+     * see {@link OffsetCommitter}. A rejected promise is logged and counted as failed. With
+     * {@code consumer.commit.atLeastOnce} it also stops the consumer: no more messages are
+     * taken, no more offsets are committed, and {@link ConsumerStats#isStopped()} turns true,
+     * so the failed message is handed out again after a restart. Without it the message is
+     * skipped. Retry in the handler, see {@link RetryStage}, to get past passing failures.
+     *
+     * At most {@code consumer.credits} promises are pending at a time, zero means no limit.
+     */
+    public <T> Promise<Boolean> process(String topic, MessageCodec<T> codec, Function<T, Promise<?>> handler) {
+        return invokablePromise(promise -> start(topic, promise, () -> {
+            final Predicate<T> processor = processor(handler, value -> 1);
+
+            return kafkaStream -> deliver(kafkaStream, codec, credits, processor);
+        }));
+    }
+
+    /**
+     * Calls the handler with batches collected as in
+     * {@link #consumeBatches(String, MessageCodec, Stream)}, with the commit and window
+     * rules of {@link #process(String, MessageCodec, Function)}. The window counts messages.
+     */
+    public <T> Promise<Boolean> processBatches(String topic, MessageCodec<T> codec,
+                                               Function<List<T>, Promise<?>> handler) {
+        return invokablePromise(promise -> start(topic, promise, () -> {
+            final Predicate<List<T>> processor = processor(handler, List::size);
+
+            return kafkaStream -> {
+                final Batcher<T> batcher = new Batcher<>(batchMaxSize, batchMaxWaitMs, timer, processor);
+                if (deliver(kafkaStream, codec, credits, batcher::add)) {
+                    batcher.flush();
+                }
+            };
+        }));
+    }
+
+    /**
+     * Gets every payload the codec could not decode, for example to dead letter it. It
+     * returns an invokable promise, the payload counts as processed once that completed.
+     * A rejected promise counts as a failed message, see
+     * {@link #process(String, MessageCodec, Function)}. Without it such payloads are only logged.
+     */
+    public void onUndecodable(BiFunction<byte[], Exception, Promise<?>> handler) {
+        this.undecodable = handler;
+    }
+
+    public ConsumerStats stats() {
+        return stats;
+    }
+
+    private <T> Promise<Boolean> consume(String topic, MessageCodec<T> codec, int window, Stream<T> stream) {
+        return invokablePromise(promise -> start(topic, promise, () -> {
+            final Predicate<T> replier = replier(stream, window, value -> 1);
+
+            return kafkaStream -> deliver(kafkaStream, codec, 0, replier);
+        }));
+    }
+
+    /**
+     * Creates the streams of the topic and runs a worker on each. The connector of Kafka 0.8
+     * creates its message streams only once, so a consumer can be started only once, with one
+     * of consume, consumeBatches, process or processBatches. Later calls are rejected.
+     *
+     * @param workers makes the sinks, called only if the consumer was not started yet.
+     */
+    private void start(String topic, Promise<Boolean> promise,
+                       Supplier<java.util.function.Consumer<KafkaStream<byte[], byte[]>>> workers) {
+        if (!started.compareAndSet(false, true)) {
+            promise.reject("Consumer already started, a Kafka connector creates its streams only once");
+            return;
+        }
+
+        final java.util.function.Consumer<KafkaStream<byte[], byte[]>> worker = workers.get();
+        streams(topic).forEach(kafkaStream -> executor.submit(() -> worker.accept(kafkaStream)));
+        promise.resolve(true);
+    }
+
+    private List<KafkaStream<byte[], byte[]>> streams(String topic) {
+        return consumer.createMessageStreams(
+                new HashMap<String, Integer>(){
+                    {
+                        put(topic, partitions);
+                    }
+                }
+        ).get(topic);
+    }
+
+    /**
+     * Decodes every message of the Kafka stream and offers it to the sink. A message is only
+     * taken from Kafka once the committer admits it, see {@link OffsetCommitter#admit(int)}.
+     *
+     * @return true if the Kafka stream ended, false if the sink asked to stop.
+     */
+    private <T> boolean deliver(KafkaStream<byte[], byte[]> kafkaStream, MessageCodec<T> codec,
+                                int window, Predicate<T> sink) {
+        final Iterator<MessageAndMetadata<byte[], byte[]>> messages = kafkaStream.iterator();
+        while (messages.hasNext()) {
+            try {
+                if (!committer.admit(window)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            final MessageAndMetadata<byte[], byte[]> data = messages.next();
+            final T value;
+            try {
+                value = codec.decode(data.message());
+            } catch (Exception ex) {
+                stats.undecodable();
+                logger.error("Unable to decode message at partition {} offset {}",
+                        data.partition(), data.offset(), ex);
+                final BiFunction<byte[], Exception, Promise<?>> handler = undecodable;
+                if (handler == null) {
+                    committer.done(1);
+                } else {
+                    invoke(() -> handler.apply(data.message(), ex), 1);
+                }
+                continue;
+            }
+
+            if (!sink.test(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hands values to the handler and tells the committer once its promise completed.
+     */
+    private <V> Predicate<V> processor(Function<V, Promise<?>> handler, ToIntFunction<V> messages) {
+        if (credits > 0) {
+            stats.credits(() -> Math.max(0, credits - committer.outstanding()));
+        }
+
+        return value -> {
+            final int count = messages.applyAsInt(value);
+            stats.delivered(count);
+            invoke(() -> handler.apply(value), count);
+            return true;
+        };
+    }
+
+    /**
+     * Invokes the promise of the work and tells the committer once it completed.
+     */
+    private void invoke(Supplier<Promise<?>> work, int count) {
+        try {
+            work.get()
+                    .then(result -> committer.done(count))
+                    .catchError(error -> failed(count, error))
+                    .invoke();
+        } catch (Exception ex) {
+            failed(count, ex);
+        }
+    }
+
+    private void failed(int count, Throwable error) {
+        stats.failed();
+        logger.error("Unable to process {} message(s)", count, error);
+        if (atLeastOnce) {
+            committer.failed(count, error);
+        } else {
+            committer.done(count);
+        }
+    }
+
+    /**
+     * Replies to the stream once a credit is free, the returned predicate is false once
+     * the handler cancelled or the consumer shut down. Streams have no promise to wait for,
+     * so a message counts as processed for the committer once the handler returned.
+     */
+    private <V> Predicate<V> replier(Stream<V> stream, int window, ToIntFunction<V> messages) {
+        final Credits credits = window > 0 ? new Credits(window, stats) : null;
+        if (credits != null) {
+            openCredits.add(credits);
+        }
+        final java.util.function.Consumer<Long> wantsMore = credits == null ? more -> { } : credits::grant;
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        return value -> {
+            try {
+                if (credits != null && !credits.take()) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            if (cancelled.get()) {
+                return false;
+            }
+            final int count = messages.applyAsInt(value);
+            stats.delivered(count);
+            stream.reply(value, false, () -> cancelled.set(true), wantsMore);
+            committer.done(count);
+            return true;
+        };
     }
 
     public void shutdown() {
+        openCredits.forEach(Credits::close);
+        committer.close();
+        timer.shutdown();
         if (consumer != null) consumer.shutdown();
         if (executor != null) executor.shutdown();
         try {
@@ -69,6 +355,7 @@ public class Consumer {
         props.put("group.id", groupId);
         props.put("zookeeper.session.timeout.ms", "400");
         props.put("zookeeper.sync.time.ms", "200");
+        props.put("auto.commit.enable", String.valueOf(!atLeastOnce));
         props.put("auto.commit.interval.ms", "1000");
         props.put("auto.offset.reset", "smallest");
 
@@ -81,5 +368,18 @@ public class Consumer {
         zookeeperConnect = config.getString("zookeeperConnect");
         partitions = config.getInt("partitions");
         groupId = config.getString("groupId");
+        Config consumerConfig = config.getConfig("consumer");
+        credits = consumerConfig.getInt("credits");
+        batchMaxSize = consumerConfig.getConfig("batch").getInt("maxSize");
+        batchMaxWaitMs = consumerConfig.getConfig("batch").getInt("maxWaitMs");
+        Config commitConfig = consumerConfig.getConfig("commit");
+        atLeastOnce = commitConfig.getBoolean("atLeastOnce");
+        commitMaxMessages = commitConfig.getInt("maxMessages");
+        commitMaxWaitMs = commitConfig.getInt("maxWaitMs");
+
+        if (commitMaxWaitMs < 0) {
+            throw new IllegalArgumentException("consumer.commit.maxWaitMs must not be negative, was "
+                    + commitMaxWaitMs);
+        }
     }
 }
@@ -0,0 +1,129 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Delivery counters and backpressure of a {@link Consumer}. Updated from the consumer
+ * workers, reported from the service reactor.
+ */
+public class ConsumerStats {
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong undecodable = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong pausedNanos = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong commitNanos = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile IntSupplier credits = () -> 0;
+    private volatile boolean stopped;
+
+    private long reportedDelivered;
+    private long reportedUndecodable;
+    private long reportedPauses;
+    private long reportedPausedNanos;
+    private long reportedCommits;
+    private long reportedCommitNanos;
+    private long reportedFailed;
+
+    void delivered(final int messages) {
+        delivered.addAndGet(messages);
+    }
+
+    void undecodable() {
+        undecodable.incrementAndGet();
+    }
+
+    void paused(final long nanos) {
+        pauses.incrementAndGet();
+        pausedNanos.addAndGet(nanos);
+    }
+
+    void committed(final long nanos) {
+        commits.incrementAndGet();
+        commitNanos.addAndGet(nanos);
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void stopped() {
+        stopped = true;
+    }
+
+    void credits(final IntSupplier credits) {
+        this.credits = credits;
+    }
+
+    /**
+     * True once a failed message stopped the consumer, see {@link OffsetCommitter}.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public long deliveries() {
+        return delivered.get();
+    }
+
+    public long pauses() {
+        return pauses.get();
+    }
+
+    public long commits() {
+        return commits.get();
+    }
+
+    public long failures() {
+        return failed.get();
+    }
+
+    public int credits() {
+        return credits.getAsInt();
+    }
+
+    /**
+     * Sends the counts since the last report as {@code prefix.delivered},
+     * {@code prefix.undecodable}, {@code prefix.failed}, {@code prefix.paused} and
+     * {@code prefix.commits}, the time the workers spent waiting for credits or commits over
+     * the same period as {@code prefix.paused.time} in ms, the average offset commit time as
+     * {@code prefix.commit.time}, the credits left right now as {@code prefix.credits}, and
+     * {@code prefix.stopped} as 1 once a failed message stopped the consumer.
+     * Call it from the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        final long pausedNow = pausedNanos.get();
+        mgmt.recordTiming(prefix + ".paused.time", TimeUnit.NANOSECONDS.toMillis(pausedNow - reportedPausedNanos));
+        reportedPausedNanos = pausedNow;
+
+        final long commitsNow = commits.get();
+        final long commitNanosNow = commitNanos.get();
+        if (commitsNow > reportedCommits) {
+            mgmt.recordTiming(prefix + ".commit.time", TimeUnit.NANOSECONDS.toMillis(
+                    (commitNanosNow - reportedCommitNanos) / (commitsNow - reportedCommits)));
+        }
+        reportedCommitNanos = commitNanosNow;
+
+        mgmt.recordLevel(prefix + ".credits", credits());
+        mgmt.recordLevel(prefix + ".stopped", stopped ? 1 : 0);
+
+        reportedDelivered = report(mgmt, prefix + ".delivered", delivered.get(), reportedDelivered);
+        reportedUndecodable = report(mgmt, prefix + ".undecodable", undecodable.get(), reportedUndecodable);
+        reportedPauses = report(mgmt, prefix + ".paused", pauses.get(), reportedPauses);
+        reportedFailed = report(mgmt, prefix + ".failed", failed.get(), reportedFailed);
+        reportedCommits = report(mgmt, prefix + ".commits", commitsNow, reportedCommits);
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package io.advantageous.reakt.examples.messaging;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * The in-flight window between the Kafka workers and a stream handler. A worker takes one
+ * credit per message it hands out and waits when there are none left, the handler gives
+ * them back through the stream's request callback once it is ready for more.
+ */
+final class Credits {
+
+    private final Semaphore available;
+    private final ConsumerStats stats;
+    private volatile boolean closed;
+
+    Credits(final int window, final ConsumerStats stats) {
+        this.available = new Semaphore(window);
+        this.stats = stats;
+        stats.credits(available::availablePermits);
+    }
+
+    /**
+     * Takes a credit, pausing the calling worker until the handler grants one.
+     *
+     * @return false if the window was closed while waiting.
+     */
+    boolean take() throws InterruptedException {
+        if (available.tryAcquire()) {
+            return !closed;
+        }
+
+        final long start = System.nanoTime();
+        available.acquire();
+        stats.paused(System.nanoTime() - start);
+        return !closed;
+    }
+
+    /**
+     * Gives back credits, ignored once closed. The window is capped at
+     * {@code Integer.MAX_VALUE}, the semaphore fails on anything larger. Synchronized so
+     * the permits can only go down between reading and releasing them.
+     */
+    synchronized void grant(final long count) {
+        if (count > 0 && !closed) {
+            release(count);
+        }
+    }
+
+    /**
+     * Wakes up every paused worker so it can stop.
+     */
+    synchronized void close() {
+        closed = true;
+        release(Integer.MAX_VALUE / 2);
+    }
+
+    private void release(final long count) {
+        final int room = Integer.MAX_VALUE - Math.max(0, available.availablePermits());
+        final int permits = (int) Math.min(count, room);
+        if (permits > 0) {
+            available.release(permits);
+        }
+    }
+}
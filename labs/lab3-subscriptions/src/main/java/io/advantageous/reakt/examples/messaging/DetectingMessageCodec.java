@@ -0,0 +1,41 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+
+/**
+ * Reads both JSON and binary messages, telling them apart by the binary magic byte, and
+ * writes whichever format is configured. Lets producers move to binary once every
+ * consumer runs this codec.
+ */
+public class DetectingMessageCodec implements MessageCodec<Message> {
+
+    private final MessageCodec<Message> json = new JsonMessageCodec();
+    private final MessageCodec<Message> binary = new BinaryMessageCodec();
+    private final MessageCodec<Message> encoder;
+
+    /**
+     * @param format {@code json} or {@code binary}, the format to write.
+     */
+    public DetectingMessageCodec(final String format) {
+        switch (format) {
+            case "json":
+                encoder = json;
+                break;
+            case "binary":
+                encoder = binary;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown message format " + format);
+        }
+    }
+
+    @Override
+    public byte[] encode(final Message message) {
+        return encoder.encode(message);
+    }
+
+    @Override
+    public Message decode(final byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == BinaryMessageCodec.MAGIC ? binary.decode(bytes) : json.decode(bytes);
+    }
+}
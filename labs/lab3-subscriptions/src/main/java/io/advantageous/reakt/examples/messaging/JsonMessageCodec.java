@@ -0,0 +1,30 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.boon.json.JsonParserAndMapper;
+import io.advantageous.boon.json.JsonParserFactory;
+import io.advantageous.reakt.examples.model.Message;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.advantageous.boon.json.JsonFactory.toJson;
+
+/**
+ * Boon JSON for {@link Message}. Decoding parses the UTF-8 bytes directly instead of
+ * building a String first. Boon parsers keep their buffers between calls and are not
+ * thread safe, so every consumer worker gets its own.
+ */
+public class JsonMessageCodec implements MessageCodec<Message> {
+
+    private final ThreadLocal<JsonParserAndMapper> parser =
+            ThreadLocal.withInitial(() -> new JsonParserFactory().create());
+
+    @Override
+    public byte[] encode(final Message message) {
+        return toJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Message decode(final byte[] bytes) {
+        return parser.get().parse(Message.class, bytes);
+    }
+}
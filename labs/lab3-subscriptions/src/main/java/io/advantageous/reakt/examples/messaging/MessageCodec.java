@@ -0,0 +1,23 @@
+package io.advantageous.reakt.examples.messaging;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns values into Kafka payloads and back. The consumer decodes straight from the bytes
+ * Kafka handed it, so no intermediate String is built unless the codec wants one.
+ * Codecs are called from every consumer worker at once and must be thread safe.
+ */
+public interface MessageCodec<T> {
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+
+    /**
+     * The payload as a UTF-8 String, what {@link Consumer#consume(String, io.advantageous.reakt.Stream)}
+     * has always handed out.
+     */
+    static MessageCodec<String> string() {
+        return StringCodec.INSTANCE;
+    }
+}
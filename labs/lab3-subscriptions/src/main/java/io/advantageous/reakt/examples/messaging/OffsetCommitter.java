@@ -0,0 +1,150 @@
+package io.advantageous.reakt.examples.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Commits the consumer's offsets only once every message taken from Kafka was processed.
+ *
+ * The high level consumer can only commit the position of every partition at once, so a
+ * commit is due after {@code maxMessages} processed messages or {@code maxWaitMs}. Once it
+ * is due no more messages are taken, the ones in flight are drained, and then the offsets
+ * are committed and taking resumes. A crash replays at most what was taken since the last
+ * commit, nothing is skipped.
+ *
+ * A commit moves every partition past everything taken so far, so once a message failed for
+ * good no commit is safe anymore. The committer then stops: no more messages are taken and
+ * nothing is committed, the failed message and everything after it is replayed on restart.
+ */
+final class OffsetCommitter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Runnable commitOffsets;
+    private final int maxMessages;
+    private final long maxWaitMs;
+    private final Executor executor;
+    private final ConsumerStats stats;
+
+    private int outstanding;
+    private int processed;
+    private boolean due;
+    private boolean committing;
+    private boolean closed;
+    private Throwable failure;
+    private long lastCommit = System.currentTimeMillis();
+
+    /**
+     * @param executor runs the commits, they block on ZooKeeper.
+     */
+    OffsetCommitter(final Runnable commitOffsets, final int maxMessages, final long maxWaitMs,
+                    final Executor executor, final ConsumerStats stats) {
+        this.commitOffsets = commitOffsets;
+        this.maxMessages = maxMessages;
+        this.maxWaitMs = maxWaitMs;
+        this.executor = executor;
+        this.stats = stats;
+    }
+
+    /**
+     * Called by a worker before it takes the next message. Waits while a commit is due,
+     * or while {@code window} messages are in flight if the window is above zero.
+     *
+     * @return false if the committer was closed or stopped while waiting.
+     */
+    synchronized boolean admit(final int window) throws InterruptedException {
+        long start = 0;
+        while (!closed && failure == null && (due || (window > 0 && outstanding >= window))) {
+            if (start == 0) {
+                start = System.nanoTime();
+            }
+            wait();
+        }
+        if (start != 0) {
+            stats.paused(System.nanoTime() - start);
+        }
+        if (closed || failure != null) {
+            return false;
+        }
+        outstanding++;
+        return true;
+    }
+
+    /**
+     * Called once admitted messages were processed, or dropped for good.
+     */
+    synchronized void done(final int messages) {
+        outstanding -= messages;
+        processed += messages;
+        if (processed >= maxMessages) {
+            due = true;
+        }
+        commitIfDrained();
+        notifyAll();
+    }
+
+    /**
+     * Called once admitted messages failed for good. Stops the committer, see above.
+     */
+    synchronized void failed(final int messages, final Throwable error) {
+        outstanding -= messages;
+        if (failure == null) {
+            failure = error;
+            stats.stopped();
+            logger.error("Stopped taking messages after a failure, offsets are no longer committed", error);
+        }
+        notifyAll();
+    }
+
+    /**
+     * @return the failure that stopped the committer, null while it runs.
+     */
+    synchronized Throwable failure() {
+        return failure;
+    }
+
+    /**
+     * Called from a timer, makes a commit due once {@code maxWaitMs} passed since the last one.
+     */
+    synchronized void tick() {
+        if (processed > 0 && System.currentTimeMillis() - lastCommit >= maxWaitMs) {
+            due = true;
+            commitIfDrained();
+        }
+    }
+
+    synchronized int outstanding() {
+        return outstanding;
+    }
+
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private void commitIfDrained() {
+        if (due && outstanding == 0 && !committing && !closed && failure == null) {
+            committing = true;
+            executor.execute(this::commit);
+        }
+    }
+
+    private void commit() {
+        final long start = System.nanoTime();
+        try {
+            commitOffsets.run();
+            stats.committed(System.nanoTime() - start);
+        } catch (Exception ex) {
+            logger.error("Unable to commit offsets, they will be committed with the next batch", ex);
+        }
+
+        synchronized (this) {
+            processed = 0;
+            due = false;
+            committing = false;
+            lastCommit = System.currentTimeMillis();
+            notifyAll();
+        }
+    }
+}
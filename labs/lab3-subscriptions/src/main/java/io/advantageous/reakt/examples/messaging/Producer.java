@@ -1,6 +1,7 @@
 package io.advantageous.reakt.examples.messaging;
 
 import io.advantageous.config.Config;
+import io.advantageous.reakt.examples.model.PublishResult;
 import io.advantageous.reakt.examples.util.ConfigUtils;
 import io.advantageous.reakt.promise.Promise;
 import kafka.admin.AdminUtils;
@@ -8,10 +9,19 @@ import kafka.utils.ZKStringSerializer$;
 import org.I0Itec.zkclient.ZkClient;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 import static org.apache.kafka.clients.producer.ProducerConfig.*;
@@ -21,7 +31,7 @@ import static org.apache.kafka.clients.producer.ProducerConfig.*;
  */
 public class Producer {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private KafkaProducer<String, String> producer;
+    private org.apache.kafka.clients.producer.Producer<String, byte[]> producer;
     private int sessionTimeoutMs = 10 * 1000;
     private int connectionTimeoutMs = 8 * 1000;
     private int partitions;
@@ -29,8 +39,16 @@ public class Producer {
     private String kafkaConnect;
     private String zookeeperConnect;
     private String topic;
+    private String deadLetterTopic;
     private String clientId;
     private String kafkaSerializationClass;
+    private int batchSize;
+    private int lingerMs;
+    private String compressionType;
+    private int maxInFlight;
+    private long bufferMemory;
+    private Semaphore outstandingSends;
+    private ProducerStats stats;
 
     public Producer() {
         config();
@@ -41,9 +59,32 @@ public class Producer {
 
         props.put(CLIENT_ID_CONFIG, clientId);
         props.put(KEY_SERIALIZER_CLASS_CONFIG, kafkaSerializationClass);
-        props.put(VALUE_SERIALIZER_CLASS_CONFIG, kafkaSerializationClass);
+        props.put(VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+
+        props.put(BATCH_SIZE_CONFIG, String.valueOf(batchSize));
+        props.put(LINGER_MS_CONFIG, String.valueOf(lingerMs));
+        props.put(COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, String.valueOf(maxInFlight));
+        props.put(BUFFER_MEMORY_CONFIG, String.valueOf(bufferMemory));
+
+        logger.info("Kafka producer batch.size {}, linger.ms {}, compression {}, max.in.flight {}, " +
+                        "buffer.memory {}, max outstanding sends {}", batchSize, lingerMs, compressionType,
+                maxInFlight, bufferMemory, outstandingSends.availablePermits());
 
         producer = new KafkaProducer<>(props);
+        stats = new ProducerStats(producer::metrics);
+    }
+
+    /**
+     * Sends through the given Kafka producer to the topic, without reading the config or
+     * creating topics.
+     */
+    Producer(final org.apache.kafka.clients.producer.Producer<String, byte[]> producer, final String topic,
+             final int maxOutstandingSends) {
+        this.producer = producer;
+        this.topic = topic;
+        this.outstandingSends = new Semaphore(maxOutstandingSends);
+        this.stats = new ProducerStats(producer::metrics);
     }
 
     private void topic() {
@@ -53,29 +94,116 @@ public class Producer {
                 connectionTimeoutMs,
                 ZKStringSerializer$.MODULE$);
 
-        if (!AdminUtils.topicExists(zkClient, topic)) {
-            System.out.println("Topic Doesn't Exist");
-            AdminUtils.createTopic(zkClient, topic, partitions, replication, new Properties());
+        for (String name : Arrays.asList(topic, deadLetterTopic)) {
+            if (!AdminUtils.topicExists(zkClient, name)) {
+                System.out.println("Topic Doesn't Exist");
+                AdminUtils.createTopic(zkClient, name, partitions, replication, new Properties());
+            }
         }
 
         zkClient.close();
     }
 
 
+    /**
+     * Sends the message, or rejects at once when too many sends are already outstanding
+     * instead of buffering without bound.
+     */
     public Promise<Boolean> send(String key, String message) {
-        return invokablePromise(promise ->
-                producer.send(new ProducerRecord<>(topic, key, message), (m, e) -> {
-                    if (m != null) {
+        return sendTo(topic, key, message);
+    }
 
-                        logger.info("message " + message + " sent to partition(" + m.partition() + "), " +
-                                "offset(" + m.offset() + ") at " + System.currentTimeMillis());
+    /**
+     * As {@link #send(String, String)}, for a payload a {@link MessageCodec} encoded.
+     */
+    public Promise<Boolean> send(String key, byte[] payload) {
+        return sendTo(topic, key, payload);
+    }
+
+    /**
+     * As {@link #send(String, String)}, to another topic such as the dead letter topic.
+     */
+    public Promise<Boolean> sendTo(String topic, String key, String message) {
+        return sendTo(topic, key, message.getBytes(StandardCharsets.UTF_8));
+    }
 
+    public Promise<Boolean> sendTo(String topic, String key, byte[] payload) {
+        return invokablePromise(promise ->
+                send(topic, key, payload, (metadata, error) -> {
+                    if (error == null) {
                         promise.resolve(true);
                     } else {
-                        promise.reject(e);
+                        promise.reject(error);
                     }
                 }));
+    }
+
+    /**
+     * Hands every message to the producer without waiting in between, so the burst goes out
+     * in as few batches as the producer config allows. Resolves once every send completed,
+     * with one result per message in order. A failed or rejected message does not fail the
+     * others.
+     */
+    public Promise<List<PublishResult>> sendAll(List<String> keys, List<byte[]> payloads) {
+        return sendAllTo(topic, keys, payloads);
+    }
+
+    /**
+     * As {@link #sendAll(List, List)}, to another topic such as the dead letter topic.
+     */
+    public Promise<List<PublishResult>> sendAllTo(String topic, List<String> keys, List<byte[]> payloads) {
+        return invokablePromise(promise -> {
+            if (payloads.isEmpty()) {
+                promise.resolve(Collections.emptyList());
+                return;
+            }
+
+            final PublishResult[] results = new PublishResult[payloads.size()];
+            final AtomicInteger remaining = new AtomicInteger(payloads.size());
+
+            for (int index = 0; index < payloads.size(); index++) {
+                final int position = index;
+                final String key = keys.get(index);
+                send(topic, key, payloads.get(index), (metadata, error) -> {
+                    results[position] = error == null ?
+                            new PublishResult(key, metadata.partition(), metadata.offset()) :
+                            new PublishResult(key, String.valueOf(error.getMessage()));
+                    if (remaining.decrementAndGet() == 0) {
+                        promise.resolve(Arrays.asList(results));
+                    }
+                });
+            }
+        });
+    }
+
+    private void send(String topic, String key, byte[] payload, BiConsumer<RecordMetadata, Exception> callback) {
+        if (!outstandingSends.tryAcquire()) {
+            stats.rejected();
+            callback.accept(null, new IllegalStateException("Too many outstanding sends, message rejected"));
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        try {
+            producer.send(new ProducerRecord<>(topic, key, payload), (m, e) -> {
+                outstandingSends.release();
+                if (m != null) {
+                    stats.sent(System.currentTimeMillis() - start);
+                    callback.accept(m, null);
+                } else {
+                    stats.failed();
+                    callback.accept(null, e);
+                }
+            });
+        } catch (Exception ex) {
+            outstandingSends.release();
+            stats.failed();
+            callback.accept(null, ex);
+        }
+    }
 
+    public ProducerStats stats() {
+        return stats;
     }
 
     private void config() {
@@ -88,5 +216,14 @@ public class Producer {
         topic = config.getString("topic");
         partitions = config.getInt("partitions");
         replication = config.getInt("replication");
+        deadLetterTopic = config.getConfig("retry").getString("deadLetterTopic");
+
+        Config throughput = config.getConfig("producer");
+        batchSize = throughput.getInt("batchSize");
+        lingerMs = throughput.getInt("lingerMs");
+        compressionType = throughput.getString("compressionType");
+        maxInFlight = throughput.getInt("maxInFlight");
+        bufferMemory = throughput.getInt("bufferMemory");
+        outstandingSends = new Semaphore(throughput.getInt("maxOutstandingSends"));
     }
 }
@@ -0,0 +1,107 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Send counters and latency of a {@link Producer}, plus the batching metrics of its
+ * KafkaProducer. Updated from the Kafka I/O thread, reported from the service reactor.
+ */
+public class ProducerStats {
+
+    private final Supplier<Map<MetricName, ? extends Metric>> kafkaMetrics;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong latencyTotal = new AtomicLong();
+    private final AtomicLong latencyMax = new AtomicLong();
+
+    private long reportedSent;
+    private long reportedFailed;
+    private long reportedRejected;
+    private long reportedLatencyTotal;
+
+    ProducerStats(final Supplier<Map<MetricName, ? extends Metric>> kafkaMetrics) {
+        this.kafkaMetrics = kafkaMetrics;
+    }
+
+    void sent(final long latencyMillis) {
+        sent.incrementAndGet();
+        latencyTotal.addAndGet(latencyMillis);
+        latencyMax.accumulateAndGet(latencyMillis, Math::max);
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    public long sends() {
+        return sent.get();
+    }
+
+    public long failures() {
+        return failed.get();
+    }
+
+    public long rejections() {
+        return rejected.get();
+    }
+
+    /**
+     * Sends the counts since the last report as {@code prefix.sent}, {@code prefix.failed}
+     * and {@code prefix.rejected}, the average and max send latency over the same period as
+     * {@code prefix.latency} and {@code prefix.latency.max}, and the producer's average batch
+     * size in bytes and records per request as {@code prefix.batch.bytes} and
+     * {@code prefix.batch.records}. Call it from the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        final long sentNow = sent.get();
+        final long latencyNow = latencyTotal.get();
+        if (sentNow > reportedSent) {
+            mgmt.recordTiming(prefix + ".latency", (latencyNow - reportedLatencyTotal) / (sentNow - reportedSent));
+            mgmt.recordLevel(prefix + ".latency.max", (int) latencyMax.getAndSet(0));
+        }
+        reportedLatencyTotal = latencyNow;
+
+        reportedSent = report(mgmt, prefix + ".sent", sentNow, reportedSent);
+        reportedFailed = report(mgmt, prefix + ".failed", failed.get(), reportedFailed);
+        reportedRejected = report(mgmt, prefix + ".rejected", rejected.get(), reportedRejected);
+
+        for (final Map.Entry<MetricName, ? extends Metric> metric : kafkaMetrics.get().entrySet()) {
+            if (!"producer-metrics".equals(metric.getKey().group())) {
+                continue;
+            }
+            switch (metric.getKey().name()) {
+                case "batch-size-avg":
+                    mgmt.recordLevel(prefix + ".batch.bytes", level(metric.getValue()));
+                    break;
+                case "records-per-request-avg":
+                    mgmt.recordLevel(prefix + ".batch.records", level(metric.getValue()));
+                    break;
+                default:
+            }
+        }
+    }
+
+    private static int level(final Metric metric) {
+        final double value = metric.value();
+        return Double.isNaN(value) || Double.isInfinite(value) ? 0 : (int) Math.round(value);
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+}
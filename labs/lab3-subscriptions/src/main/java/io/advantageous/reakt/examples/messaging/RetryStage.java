@@ -0,0 +1,166 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.config.Config;
+import io.advantageous.reakt.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+
+/**
+ * Retries a failed handler with exponential backoff, and hands what still fails after
+ * {@code maxAttempts} to the dead letter function.
+ *
+ * Retries wait on the delay queue of a scheduler, never on a consumer worker. The promise
+ * of a message only completes once it was processed or dead lettered, so with at least
+ * once commits a crash during the backoff replays the message instead of losing it.
+ *
+ * A failed dead letter publish is retried the same way, up to {@code maxAttempts}. If it
+ * still fails the promise is rejected, so the consumer does not commit past the message.
+ */
+public class RetryStage<V> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final BiFunction<V, Throwable, Promise<?>> deadLetter;
+    private final ScheduledExecutorService scheduler;
+    private final RetryStats stats = new RetryStats();
+
+    /**
+     * @param maxAttempts    attempts before the value is dead lettered, including the first.
+     * @param initialBackoff wait before the first retry, doubled for every further one.
+     * @param maxBackoff     upper bound for the wait.
+     * @param deadLetter     publishes a value that failed every attempt, with the last error.
+     *                       Called again if it rejects.
+     */
+    public RetryStage(final int maxAttempts, final Duration initialBackoff, final Duration maxBackoff,
+                      final BiFunction<V, Throwable, Promise<?>> deadLetter) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoffMs = Math.max(initialBackoffMs, maxBackoff.toMillis());
+        this.deadLetter = deadLetter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "message-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads {@code maxAttempts}, {@code initialBackoffMs} and {@code maxBackoffMs}.
+     */
+    public static <V> RetryStage<V> fromConfig(final Config config,
+                                               final BiFunction<V, Throwable, Promise<?>> deadLetter) {
+        return new RetryStage<>(config.getInt("maxAttempts"),
+                Duration.ofMillis(config.getInt("initialBackoffMs")),
+                Duration.ofMillis(config.getInt("maxBackoffMs")),
+                deadLetter);
+    }
+
+    /**
+     * The handler with retries and dead lettering in front of it. The handler returns an
+     * invokable promise and is called again for every attempt.
+     */
+    public Function<V, Promise<?>> wrap(final Function<V, Promise<?>> handler) {
+        return value -> invokablePromise((Promise<Boolean> promise) -> attempt(handler, value, 1, promise));
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryStats stats() {
+        return stats;
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Doubles the initial backoff per attempt up to the max, then waits between half and
+     * all of that so retries of a burst of failures do not line up.
+     */
+    long backoffMs(final int attempt) {
+        final long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 30));
+        final long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private void attempt(final Function<V, Promise<?>> handler, final V value,
+                         final int attempt, final Promise<Boolean> promise) {
+        try {
+            handler.apply(value)
+                    .then(result -> {
+                        if (attempt > 1) {
+                            stats.recovered();
+                        }
+                        promise.resolve(true);
+                    })
+                    .catchError(error -> failed(handler, value, attempt, promise, error))
+                    .invoke();
+        } catch (Exception ex) {
+            failed(handler, value, attempt, promise, ex);
+        }
+    }
+
+    private void failed(final Function<V, Promise<?>> handler, final V value, final int attempt,
+                        final Promise<Boolean> promise, final Throwable error) {
+        if (attempt >= maxAttempts) {
+            logger.error("Giving up after {} attempts, dead lettering", maxAttempts, error);
+            deadLetter(value, error, 1, promise);
+            return;
+        }
+
+        final long backoff = backoffMs(attempt);
+        logger.warn("Attempt {} of {} failed, retrying in {} ms: {}", attempt, maxAttempts, backoff, error.toString());
+        stats.scheduled();
+        scheduler.schedule(() -> {
+            stats.retried();
+            attempt(handler, value, attempt + 1, promise);
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    private void deadLetter(final V value, final Throwable error, final int attempt,
+                            final Promise<Boolean> promise) {
+        try {
+            deadLetter.apply(value, error)
+                    .then(result -> {
+                        stats.deadLettered();
+                        promise.resolve(true);
+                    })
+                    .catchError(deadLetterError -> deadLetterFailed(value, error, attempt, promise, deadLetterError))
+                    .invoke();
+        } catch (Exception ex) {
+            deadLetterFailed(value, error, attempt, promise, ex);
+        }
+    }
+
+    private void deadLetterFailed(final V value, final Throwable error, final int attempt,
+                                  final Promise<Boolean> promise, final Throwable deadLetterError) {
+        if (attempt >= maxAttempts) {
+            logger.error("Unable to dead letter after {} attempts", maxAttempts, deadLetterError);
+            promise.reject("Unable to dead letter", deadLetterError);
+            return;
+        }
+
+        final long backoff = backoffMs(attempt);
+        logger.warn("Dead letter attempt {} of {} failed, retrying in {} ms: {}", attempt, maxAttempts, backoff,
+                deadLetterError.toString());
+        stats.scheduled();
+        scheduler.schedule(() -> {
+            stats.deadLetterRetried();
+            deadLetter(value, error, attempt + 1, promise);
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+}
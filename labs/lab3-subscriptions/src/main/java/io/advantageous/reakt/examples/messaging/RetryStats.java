@@ -0,0 +1,92 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a {@link RetryStage}. Updated from the consumer and the retry scheduler,
+ * reported from the service reactor.
+ */
+public class RetryStats {
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong deadLetterRetries = new AtomicLong();
+
+    private long reportedRetries;
+    private long reportedRecovered;
+    private long reportedDeadLettered;
+    private long reportedDeadLetterRetries;
+
+    void scheduled() {
+        scheduled.incrementAndGet();
+    }
+
+    void retried() {
+        scheduled.decrementAndGet();
+        retries.incrementAndGet();
+    }
+
+    void deadLetterRetried() {
+        scheduled.decrementAndGet();
+        deadLetterRetries.incrementAndGet();
+    }
+
+    void recovered() {
+        recovered.incrementAndGet();
+    }
+
+    void deadLettered() {
+        deadLettered.incrementAndGet();
+    }
+
+    /**
+     * Retries waiting for their backoff to pass.
+     */
+    public long depth() {
+        return scheduled.get();
+    }
+
+    public long retries() {
+        return retries.get();
+    }
+
+    public long recoveries() {
+        return recovered.get();
+    }
+
+    public long deadLetters() {
+        return deadLettered.get();
+    }
+
+    public long deadLetterRetries() {
+        return deadLetterRetries.get();
+    }
+
+    /**
+     * Sends the counts since the last report as {@code prefix.retries},
+     * {@code prefix.recovered}, {@code prefix.dead} for values dead lettered and
+     * {@code prefix.dead.retries} for retried dead letter publishes, and the retries waiting
+     * right now as {@code prefix.depth}. Call it from the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        mgmt.recordLevel(prefix + ".depth", (int) depth());
+
+        reportedRetries = report(mgmt, prefix + ".retries", retries.get(), reportedRetries);
+        reportedRecovered = report(mgmt, prefix + ".recovered", recovered.get(), reportedRecovered);
+        reportedDeadLettered = report(mgmt, prefix + ".dead", deadLettered.get(), reportedDeadLettered);
+        reportedDeadLetterRetries = report(mgmt, prefix + ".dead.retries", deadLetterRetries.get(),
+                reportedDeadLetterRetries);
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+}
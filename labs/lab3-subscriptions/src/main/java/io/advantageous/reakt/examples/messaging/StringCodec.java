@@ -0,0 +1,24 @@
+package io.advantageous.reakt.examples.messaging;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payloads as UTF-8 text.
+ */
+final class StringCodec implements MessageCodec<String> {
+
+    static final StringCodec INSTANCE = new StringCodec();
+
+    private StringCodec() {
+    }
+
+    @Override
+    public byte[] encode(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decode(final byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
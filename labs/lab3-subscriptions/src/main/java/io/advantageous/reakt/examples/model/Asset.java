@@ -1,15 +1,25 @@
 package io.advantageous.reakt.examples.model;
 
+import io.advantageous.reakt.examples.mapping.Column;
+import io.advantageous.reakt.examples.mapping.ColumnType;
+import io.advantageous.reakt.examples.mapping.CreateTime;
+import io.advantageous.reakt.examples.mapping.Table;
+
 import java.util.UUID;
 
 /**
  * Created by jasondaniel on 8/22/16.
  */
+@Table("Asset")
 public class Asset {
     private String id;
     private String name;
+    @Column(type = ColumnType.TIMESTAMP)
+    @CreateTime
     private long createTime;
 
+    public Asset(){}
+
     public Asset(String id, String name, long createTime) {
         this.id = id;
         this.name = name;
@@ -0,0 +1,63 @@
+package io.advantageous.reakt.examples.model;
+
+/**
+ * A message that could not be processed, as published to the dead letter topic.
+ */
+public class DeadLetter {
+    private String topic;
+    private String key;
+    private String payload;
+    private String error;
+    private int attempts;
+    private long failedTime;
+
+    public DeadLetter(){}
+
+    /**
+     * @param payload  the message as it was consumed.
+     * @param attempts how often processing was tried, zero if it could not be decoded.
+     */
+    public DeadLetter(String topic, String key, String payload, String error, int attempts) {
+        this.topic = topic;
+        this.key = key;
+        this.payload = payload;
+        this.error = error;
+        this.attempts = attempts;
+        this.failedTime = System.currentTimeMillis();
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getFailedTime() {
+        return failedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetter{" +
+                "topic='" + topic + '\'' +
+                ", key='" + key + '\'' +
+                ", error='" + error + '\'' +
+                ", attempts=" + attempts +
+                ", failedTime=" + failedTime +
+                '}';
+    }
+}
@@ -1,11 +1,21 @@
 package io.advantageous.reakt.examples.model;
 
+import io.advantageous.reakt.examples.mapping.Column;
+import io.advantageous.reakt.examples.mapping.ColumnType;
+import io.advantageous.reakt.examples.mapping.CreateTime;
+import io.advantageous.reakt.examples.mapping.Table;
+
 /**
  * Created by jasondaniel on 8/22/16.
  */
+@Table("Entitlement")
 public class Entitlement {
+    @Column("asset_id")
     private String assetId;
+    @Column("subscription_id")
     private String subscriptionId;
+    @Column(type = ColumnType.TIMESTAMP)
+    @CreateTime
     private long createTime;
 
     public Entitlement(){}
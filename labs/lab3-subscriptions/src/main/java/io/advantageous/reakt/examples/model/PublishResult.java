@@ -0,0 +1,56 @@
+package io.advantageous.reakt.examples.model;
+
+/**
+ * Where one published message ended up, or why it could not be sent.
+ */
+public class PublishResult {
+    private String key;
+    private int partition;
+    private long offset;
+    private String error;
+
+    public PublishResult(){}
+
+    public PublishResult(String key, int partition, long offset) {
+        this.key = key;
+        this.partition = partition;
+        this.offset = offset;
+    }
+
+    public PublishResult(String key, String error) {
+        this.key = key;
+        this.partition = -1;
+        this.offset = -1;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSent() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishResult{" +
+                "key='" + key + '\'' +
+                ", partition=" + partition +
+                ", offset=" + offset +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -1,14 +1,22 @@
 package io.advantageous.reakt.examples.model;
 
+import io.advantageous.reakt.examples.mapping.Column;
+import io.advantageous.reakt.examples.mapping.ColumnType;
+import io.advantageous.reakt.examples.mapping.CreateTime;
+import io.advantageous.reakt.examples.mapping.Table;
+
 import java.util.UUID;
 
 /**
  * Created by jasondaniel on 8/11/16.
  */
+@Table("Subscription")
 public class Subscription {
     private String id;
     private String name;
     private String thirdPartyId;
+    @Column(type = ColumnType.TIMESTAMP)
+    @CreateTime
     private long createTime;
 
     public Subscription(){}
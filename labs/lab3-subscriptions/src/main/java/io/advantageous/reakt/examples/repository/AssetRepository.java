@@ -2,13 +2,23 @@ package io.advantageous.reakt.examples.repository;
 
 import com.datastax.driver.core.querybuilder.*;
 import io.advantageous.reakt.examples.model.Asset;
-import io.advantageous.reakt.examples.template.CassandraTemplate;
+import io.advantageous.reakt.examples.model.AssetMapper;
+import io.advantageous.reakt.examples.cache.CacheStats;
+import io.advantageous.reakt.examples.cache.EntityCache;
+import io.advantageous.reakt.examples.template.CassandraStorageFactory;
 import io.advantageous.reakt.examples.template.RowMapper;
+import io.advantageous.reakt.examples.template.ConnectionState;
+import io.advantageous.reakt.examples.template.StatementStats;
+import io.advantageous.reakt.examples.template.Storage;
+import io.advantageous.reakt.examples.template.StorageFactory;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.Promise;
 
 import java.net.URI;
+import java.util.Date;
 import java.util.List;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
 /**
@@ -16,7 +26,8 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
  */
 public class AssetRepository {
 
-    private final CassandraTemplate<Asset> cassandraTemplate;
+    private final Storage<Asset> storage;
+    private final EntityCache<String, Asset> cache;
 
     private static final String KEYSPACE = "assetKeyspace";
 
@@ -32,36 +43,74 @@ public class AssetRepository {
             "                    )\n" +
             "                    WITH CLUSTERING ORDER BY ( createTime asc );";
 
+    private static final AssetMapper MAPPER = AssetMapper.INSTANCE;
+
+    private static final Insert INSERT = MAPPER.insert();
+
+    private static final Select.Where FIND = QueryBuilder.select()
+            .all()
+            .from("Asset")
+            .where(QueryBuilder.eq("id", bindMarker()));
+
+    private static final Update.Where UPDATE = QueryBuilder.update("Asset")
+            .with(QueryBuilder.set("name", bindMarker()))
+            .where(QueryBuilder.eq("id", bindMarker()))
+            .and(QueryBuilder.eq("createTime", bindMarker()));
+
+    private static final Delete.Where DELETE = QueryBuilder.delete()
+            .from("Asset")
+            .where(QueryBuilder.eq("id", bindMarker()));
+
+    private static final Select.Where LIST = QueryBuilder.select()
+            .all()
+            .from("Asset")
+            .where();
+
+    private static final Select.Where LIST_ALL = QueryBuilder.select()
+            .all()
+            .from("Asset")
+            .where();
+
+    static {
+        FIND.limit(1);
+        LIST.limit(1000);
+    }
+
     public AssetRepository(final int replicationFactor, final List<URI> cassandraUris) {
-        cassandraTemplate = new CassandraTemplate<>(replicationFactor,
-                cassandraUris, TABLE_DEFINITION, KEYSPACE);
+        this(replicationFactor, cassandraUris, true);
+    }
+
+    public AssetRepository(final int replicationFactor, final List<URI> cassandraUris,
+                           final boolean preparedStatements) {
+        this(replicationFactor, cassandraUris, preparedStatements, EntityCache.noCache());
+    }
+
+    public AssetRepository(final int replicationFactor, final List<URI> cassandraUris,
+                           final boolean preparedStatements, final EntityCache<String, Asset> cache) {
+        this(new CassandraStorageFactory(replicationFactor, cassandraUris, preparedStatements), cache);
+    }
+
+    /**
+     * @param storageFactory where the assets are kept, Cassandra or an in-memory database.
+     */
+    public AssetRepository(final StorageFactory storageFactory, final EntityCache<String, Asset> cache) {
+        this.cache = cache;
+        this.storage = storageFactory.storage(TABLE_DEFINITION, KEYSPACE);
     }
 
     public Promise<Boolean> store(Asset asset){
         return invokablePromise(promise -> {
-                    final Insert insert = QueryBuilder.insertInto("Asset")
-                            .value("id", asset.getId())
-                            .value("name", asset.getName())
-                            .value("createTime", System.currentTimeMillis());
-
-                    cassandraTemplate.ifConnected("Adding asset", promise,
-                            () -> cassandraTemplate.insert(promise, insert));
+                    final Promise<Boolean> write = cache.invalidating(asset.getId(), promise);
+                    storage.ifConnected("Adding asset", write,
+                            () -> storage.insert(write, INSERT, MAPPER.values(asset)));
                 }
         );
     }
 
     public Promise<Asset> find(String id){
-        return invokablePromise(promise -> {
-
-            final Select.Where find = QueryBuilder.select()
-                    .all()
-                    .from("Asset")
-                    .where(QueryBuilder.eq("id", id));
-            find.limit(1);
-
-            cassandraTemplate.ifConnected("Find asset with id "+id, promise,
-                    () -> cassandraTemplate.find(promise, find, map()));
-        });
+        return invokablePromise(promise -> cache.find(id, promise,
+                loaded -> storage.ifConnected("Find asset with id "+id, loaded,
+                        () -> storage.find(loaded, FIND, map(), id))));
     }
 
     public Promise<Boolean> update(Asset asset) {
@@ -69,57 +118,59 @@ public class AssetRepository {
                     if(asset.getName() == null){
                         promise.reject("Name cannot be null");
                     }
-                    final Update.Where update = QueryBuilder.update("Asset")
-                            .with(QueryBuilder.set("name", asset.getName()))
-                            .where(QueryBuilder.eq("id", asset.getId()))
-                            .and(QueryBuilder.eq("createTime", asset.getCreateTime()));
-
-                    cassandraTemplate.ifConnected("Updating asset with id "+asset.getId(), promise,
-                            () -> cassandraTemplate.update(promise, update));
+                    final Promise<Boolean> write = cache.invalidating(asset.getId(), promise);
+                    storage.ifConnected("Updating asset with id "+asset.getId(), write,
+                            () -> storage.update(write, UPDATE,
+                                    asset.getName(), asset.getId(), new Date(asset.getCreateTime())));
                 }
         );
     }
 
     public Promise<Boolean> remove(String id){
         return invokablePromise(promise -> {
-
-            final Delete.Where delete = QueryBuilder.delete()
-                    .from("Asset")
-                    .where(QueryBuilder.eq("id", id));
-
-            cassandraTemplate.ifConnected("Adding asset", promise,
-                    () -> cassandraTemplate.delete(promise, delete));
+            final Promise<Boolean> write = cache.invalidating(id, promise);
+            storage.ifConnected("Adding asset", write,
+                    () -> storage.delete(write, DELETE, id));
         });
     }
 
     public Promise<List<Asset>> list(){
         return invokablePromise(promise -> {
-            final Select.Where list = QueryBuilder.select()
-                    .all()
-                    .from("Asset")
-                    .where();
-            list.limit(1000);
-
-            cassandraTemplate.ifConnected("Listing assets", promise,
-                    () -> cassandraTemplate.list(promise, list, map()));
+            storage.ifConnected("Listing assets", promise,
+                    () -> storage.list(promise, LIST, map()));
         });
     }
 
+    /**
+     * Streams every asset page by page, use this instead of {@link #list()} for large tables.
+     */
+    public void list(final Stream<Asset> stream){
+        storage.ifConnected("Streaming assets", stream,
+                () -> storage.stream(stream, LIST_ALL, map()));
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public StatementStats statementStats() {
+        return storage.statementStats();
+    }
+
+    public ConnectionState connectionState() {
+        return storage.connectionState();
+    }
+
     public Promise<Boolean> connect() {
-        return cassandraTemplate.connect();
+        return storage.connect();
     }
 
     public void close() {
-        cassandraTemplate.close();
+        storage.close();
     }
 
-    private RowMapper<Asset> map() {
-        return row -> {
-            final String id = row.getString("id");
-            final String name = row.getString("name");
-            final long createTime = row.getTimestamp("createTime").getTime();
-            return new Asset(id, name, createTime);
-        };
+    RowMapper<Asset> map() {
+        return MAPPER;
     }
 
 
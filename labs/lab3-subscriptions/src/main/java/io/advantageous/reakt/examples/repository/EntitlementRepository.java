@@ -2,20 +2,33 @@ package io.advantageous.reakt.examples.repository;
 
 import com.datastax.driver.core.querybuilder.*;
 import io.advantageous.reakt.examples.model.Entitlement;
-import io.advantageous.reakt.examples.template.CassandraTemplate;
+import io.advantageous.reakt.examples.model.EntitlementMapper;
+import io.advantageous.reakt.examples.cache.CacheStats;
+import io.advantageous.reakt.examples.cache.EntityCache;
+import io.advantageous.reakt.examples.template.CassandraStorageFactory;
 import io.advantageous.reakt.examples.template.RowMapper;
+import io.advantageous.reakt.examples.template.ConnectionState;
+import io.advantageous.reakt.examples.template.StatementStats;
+import io.advantageous.reakt.examples.template.Storage;
+import io.advantageous.reakt.examples.template.StorageFactory;
+import io.advantageous.reakt.Expected;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.Promise;
 
 import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
 
 /**
  * Created by jasondaniel on 9/6/16.
  */
 public class EntitlementRepository {
-    private final CassandraTemplate<Entitlement> cassandraTemplate;
+    private final Storage<Entitlement> storage;
+    private final EntityCache<String, Entitlement> cache;
 
     private static final String KEYSPACE = "entitlementKeyspace";
 
@@ -31,81 +44,170 @@ public class EntitlementRepository {
             "                    )\n" +
             "                    WITH CLUSTERING ORDER BY ( createTime asc );";
 
+    private static final EntitlementMapper MAPPER = EntitlementMapper.INSTANCE;
+
+    private static final Insert INSERT = MAPPER.insert();
+
+    private static final Select.Where FIND = QueryBuilder.select()
+            .all()
+            .from("Entitlement")
+            .where(QueryBuilder.eq("asset_id", bindMarker()))
+            .and(QueryBuilder.eq("subscription_id", bindMarker()));
+
+    private static final Delete.Where DELETE = QueryBuilder.delete()
+            .from("Entitlement")
+            .where(QueryBuilder.eq("asset_id", bindMarker()))
+            .and(QueryBuilder.eq("subscription_id", bindMarker()));
+
+    private static final Select.Where LIST = QueryBuilder.select()
+            .all()
+            .from("Entitlement")
+            .where();
+
+    private static final Select.Where LIST_ALL = QueryBuilder.select()
+            .all()
+            .from("Entitlement")
+            .where();
+
+    private static final Select.Where EXISTS = MAPPER.exists("asset_id", "subscription_id");
+
+    private static final Select.Where SCAN = MAPPER.select("asset_id", "subscription_id")
+            .where(QueryBuilder.gt(QueryBuilder.token("asset_id", "subscription_id"), bindMarker()))
+            .and(QueryBuilder.lte(QueryBuilder.token("asset_id", "subscription_id"), bindMarker()));
+
+    static {
+        FIND.limit(1);
+        LIST.limit(1000);
+    }
+
     public EntitlementRepository(final int replicationFactor, final List<URI> cassandraUris) {
-        cassandraTemplate = new CassandraTemplate<>(replicationFactor,
-                cassandraUris, TABLE_DEFINITION, KEYSPACE);
+        this(replicationFactor, cassandraUris, true);
+    }
+
+    public EntitlementRepository(final int replicationFactor, final List<URI> cassandraUris,
+                                 final boolean preparedStatements) {
+        this(replicationFactor, cassandraUris, preparedStatements, EntityCache.noCache());
+    }
+
+    public EntitlementRepository(final int replicationFactor, final List<URI> cassandraUris,
+                                 final boolean preparedStatements, final EntityCache<String, Entitlement> cache) {
+        this(new CassandraStorageFactory(replicationFactor, cassandraUris, preparedStatements), cache);
+    }
+
+    /**
+     * @param storageFactory where the entitlements are kept, Cassandra or an in-memory database.
+     */
+    public EntitlementRepository(final StorageFactory storageFactory, final EntityCache<String, Entitlement> cache) {
+        this.cache = cache;
+        this.storage = storageFactory.storage(TABLE_DEFINITION, KEYSPACE);
     }
 
     public Promise<Boolean> store(Entitlement entitlement){
         return invokablePromise(promise -> {
-                    final Insert insert = QueryBuilder.insertInto("Entitlement")
-                            .value("asset_id", entitlement.getAssetId())
-                            .value("subscription_id", entitlement.getSubscriptionId())
-                            .value("createTime", System.currentTimeMillis());
-
-                    cassandraTemplate.ifConnected("Adding entitlement", promise,
-                            () -> cassandraTemplate.insert(promise, insert));
+                    final Promise<Boolean> write = cache.invalidating(
+                            key(entitlement.getAssetId(), entitlement.getSubscriptionId()), promise);
+                    storage.ifConnected("Adding entitlement", write,
+                            () -> storage.insert(write, INSERT, MAPPER.values(entitlement)));
                 }
         );
     }
 
     public Promise<Entitlement> find(String assetId, String subscriptionId){
-        return invokablePromise(promise -> {
-
-            final Select.Where find = QueryBuilder.select()
-                    .all()
-                    .from("Entitlement")
-                    .where(QueryBuilder.eq("asset_id", assetId))
-                    .and(QueryBuilder.eq("subscription_id", subscriptionId));
-            find.limit(1);
+        return invokablePromise(promise -> cache.find(key(assetId, subscriptionId), promise,
+                loaded -> storage.ifConnected("Find entitlement with composite id "+assetId+","+subscriptionId, loaded,
+                        () -> storage.find(loaded, FIND, map(), assetId, subscriptionId))));
+    }
 
-            cassandraTemplate.ifConnected("Find entitlement with composite id "+assetId+","+subscriptionId, promise,
-                    () -> cassandraTemplate.find(promise, find, map()));
+    /**
+     * Checks the entitlement exists without loading it, only its partition key is read.
+     * A cached entitlement or cached miss answers without going to the store, a miss is cached.
+     */
+    public Promise<Boolean> exists(String assetId, String subscriptionId){
+        return invokablePromise(promise -> {
+            final String key = key(assetId, subscriptionId);
+            final Expected<Entitlement> cached = cache.get(key);
+            if (cached != null) {
+                promise.resolve(cached.isPresent());
+                return;
+            }
+
+            final long generation = cache.generation(key);
+            final Promise<Boolean> checked = promise(Boolean.class)
+                    .then(exists -> {
+                        if (!exists) {
+                            cache.putMissing(key, generation);
+                        }
+                        promise.resolve(exists);
+                    })
+                    .catchError(promise::reject);
+            storage.ifConnected("Checking entitlement with composite id "+assetId+","+subscriptionId, checked,
+                    () -> storage.exists(checked, EXISTS, assetId, subscriptionId));
         });
     }
 
-
     public Promise<Boolean> remove(String assetId, String subscriptionId){
         return invokablePromise(promise -> {
-
-            final Delete.Where delete = QueryBuilder.delete()
-                    .from("Entitlement")
-                    .where(QueryBuilder.eq("asset_id", assetId))
-                    .and(QueryBuilder.eq("subscription_id", subscriptionId));
-
-            cassandraTemplate.ifConnected("Removing entitlement", promise,
-                    () -> cassandraTemplate.delete(promise, delete));
+            final Promise<Boolean> write = cache.invalidating(key(assetId, subscriptionId), promise);
+            storage.ifConnected("Removing entitlement", write,
+                    () -> storage.delete(write, DELETE, assetId, subscriptionId));
         });
     }
 
     public Promise<List<Entitlement>> list(){
         return invokablePromise(promise -> {
-            final Select.Where list = QueryBuilder.select()
-                    .all()
-                    .from("Entitlement")
-                    .where();
-            list.limit(1000);
-
-            cassandraTemplate.ifConnected("Listing entitlements", promise,
-                    () -> cassandraTemplate.list(promise, list, map()));
+            storage.ifConnected("Listing entitlements", promise,
+                    () -> storage.list(promise, LIST, map()));
         });
     }
 
+    /**
+     * Streams every entitlement page by page, use this instead of {@link #list()} for large tables.
+     */
+    public void list(final Stream<Entitlement> stream){
+        storage.ifConnected("Streaming entitlements", stream,
+                () -> storage.stream(stream, LIST_ALL, map()));
+    }
+
+    /**
+     * Reads the asset and subscription id of every entitlement with a token range scan,
+     * used to load the in-process entitlement index. Resolves with the number read.
+     */
+    public Promise<Long> scanKeys(final Consumer<Entitlement> consumer){
+        return invokablePromise(promise ->
+                storage.ifConnected("Scanning entitlements", promise,
+                        () -> storage.scan(promise, SCAN, map(), consumer)));
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public StatementStats statementStats() {
+        return storage.statementStats();
+    }
+
+    public ConnectionState connectionState() {
+        return storage.connectionState();
+    }
+
     public Promise<Boolean> connect() {
-        return cassandraTemplate.connect();
+        return storage.connect();
     }
 
     public void close() {
-        cassandraTemplate.close();
+        storage.close();
+    }
+
+    /**
+     * The asset id is length prefixed, so ids that contain the separator can not make two
+     * different pairs share a key.
+     */
+    static String key(final String assetId, final String subscriptionId) {
+        return assetId.length() + ":" + assetId + ':' + subscriptionId;
     }
 
-    private RowMapper<Entitlement> map() {
-        return row -> {
-            final String assetId = row.getString("asset_id");
-            final String subscriptionId = row.getString("subscription_id");
-            final long createTime = row.getTimestamp("createTime").getTime();
-            return new Entitlement(assetId, subscriptionId, createTime);
-        };
+    RowMapper<Entitlement> map() {
+        return MAPPER;
     }
 
 }
@@ -2,13 +2,22 @@ package io.advantageous.reakt.examples.repository;
 
 import com.datastax.driver.core.querybuilder.*;
 import io.advantageous.reakt.examples.template.RowMapper;
+import io.advantageous.reakt.examples.template.ConnectionState;
+import io.advantageous.reakt.examples.template.StatementStats;
+import io.advantageous.reakt.examples.template.Storage;
+import io.advantageous.reakt.examples.template.StorageFactory;
 import io.advantageous.reakt.examples.model.Subscription;
-import io.advantageous.reakt.examples.template.CassandraTemplate;
+import io.advantageous.reakt.examples.model.SubscriptionMapper;
+import io.advantageous.reakt.examples.cache.CacheStats;
+import io.advantageous.reakt.examples.cache.EntityCache;
+import io.advantageous.reakt.examples.template.CassandraStorageFactory;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.Promise;
 
 import java.net.URI;
 import java.util.*;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
 /**
@@ -16,7 +25,8 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
  */
 
 public class SubscriptionRepository {
-    private final CassandraTemplate<Subscription> cassandraTemplate;
+    private final Storage<Subscription> storage;
+    private final EntityCache<String, Subscription> cache;
 
     private static final String TABLE_DEFINITION = "\nCREATE KEYSPACE IF NOT EXISTS  subscriptionKeyspace with REPLICATION = " +
                                                    " { 'class' : 'SimpleStrategy', 'replication_factor' : %d };\n" +
@@ -32,38 +42,75 @@ public class SubscriptionRepository {
 
     private static final String KEYSPACE = "subscriptionKeyspace";
 
+    private static final SubscriptionMapper MAPPER = SubscriptionMapper.INSTANCE;
+
+    private static final Insert INSERT = MAPPER.insert();
+
+    private static final Select.Where FIND = QueryBuilder.select()
+            .all()
+            .from("Subscription")
+            .where(QueryBuilder.eq("id", bindMarker()));
+
+    private static final Update.Where UPDATE = QueryBuilder.update("Subscription")
+            .with(QueryBuilder.set("name", bindMarker()))
+            .where(QueryBuilder.eq("id", bindMarker()))
+            .and(QueryBuilder.eq("createTime", bindMarker()));
+
+    private static final Delete.Where DELETE = QueryBuilder.delete()
+            .from("Subscription")
+            .where(QueryBuilder.eq("id", bindMarker()));
+
+    private static final Select.Where LIST = QueryBuilder.select()
+            .all()
+            .from("Subscription")
+            .where();
+
+    private static final Select.Where LIST_ALL = QueryBuilder.select()
+            .all()
+            .from("Subscription")
+            .where();
+
+    static {
+        FIND.limit(1);
+        LIST.limit(1000);
+    }
+
 
     public SubscriptionRepository(final int replicationFactor, final List<URI> cassandraUris) {
-        cassandraTemplate = new CassandraTemplate<>(replicationFactor,
-                                                    cassandraUris, TABLE_DEFINITION, KEYSPACE);
+        this(replicationFactor, cassandraUris, true);
+    }
+
+    public SubscriptionRepository(final int replicationFactor, final List<URI> cassandraUris,
+                                  final boolean preparedStatements) {
+        this(replicationFactor, cassandraUris, preparedStatements, EntityCache.noCache());
+    }
+
+    public SubscriptionRepository(final int replicationFactor, final List<URI> cassandraUris,
+                                  final boolean preparedStatements, final EntityCache<String, Subscription> cache) {
+        this(new CassandraStorageFactory(replicationFactor, cassandraUris, preparedStatements), cache);
+    }
+
+    /**
+     * @param storageFactory where the subscriptions are kept, Cassandra or an in-memory database.
+     */
+    public SubscriptionRepository(final StorageFactory storageFactory, final EntityCache<String, Subscription> cache) {
+        this.cache = cache;
+        this.storage = storageFactory.storage(TABLE_DEFINITION, KEYSPACE);
     }
 
     public Promise<Boolean> store(Subscription subscription){
         return invokablePromise(promise -> {
-                    final Insert insert = QueryBuilder.insertInto("Subscription")
-                            .value("id", subscription.getId())
-                            .value("name", subscription.getName())
-                            .value("thirdPartyId", subscription.getThirdPartyId())
-                            .value("createTime", System.currentTimeMillis());
-
-                    cassandraTemplate.ifConnected("Adding subscription", promise,
-                            () -> cassandraTemplate.insert(promise, insert));
+                    final Promise<Boolean> write = cache.invalidating(subscription.getId(), promise);
+                    storage.ifConnected("Adding subscription", write,
+                            () -> storage.insert(write, INSERT, MAPPER.values(subscription)));
                 }
         );
     }
 
     public Promise<Subscription> find(String id){
-        return invokablePromise(promise -> {
-
-            final Select.Where find = QueryBuilder.select()
-                    .all()
-                    .from("Subscription")
-                    .where(QueryBuilder.eq("id", id));
-            find.limit(1);
-
-            cassandraTemplate.ifConnected("Find subscription with id "+id, promise,
-                    () -> cassandraTemplate.find(promise, find, map()));
-        });
+        return invokablePromise(promise -> cache.find(id, promise,
+                loaded -> storage.ifConnected("Find subscription with id "+id, loaded,
+                        () -> storage.find(loaded, FIND, map(), id))));
     }
 
     public Promise<Boolean> update(Subscription subscription) {
@@ -71,57 +118,58 @@ public class SubscriptionRepository {
             if(subscription.getName() == null){
                 promise.reject("Name cannot be null");
             }
-            final Update.Where update = QueryBuilder.update("Subscription")
-                    .with(QueryBuilder.set("name", subscription.getName()))
-                    .where(QueryBuilder.eq("id", subscription.getId()))
-                    .and(QueryBuilder.eq("createTime", subscription.getCreateTime()));
-
-            cassandraTemplate.ifConnected("Updating subscription with id "+subscription.getId(), promise,
-                            () -> cassandraTemplate.update(promise, update));
+            final Promise<Boolean> write = cache.invalidating(subscription.getId(), promise);
+            storage.ifConnected("Updating subscription with id "+subscription.getId(), write,
+                            () -> storage.update(write, UPDATE, subscription.getName(),
+                                    subscription.getId(), new Date(subscription.getCreateTime())));
         }
         );
     }
 
     public Promise<Boolean> remove(String id){
         return invokablePromise(promise -> {
-
-            final Delete.Where delete = QueryBuilder.delete()
-                    .from("Subscription")
-                    .where(QueryBuilder.eq("id", id));
-
-            cassandraTemplate.ifConnected("Adding subscription", promise,
-                    () -> cassandraTemplate.delete(promise, delete));
+            final Promise<Boolean> write = cache.invalidating(id, promise);
+            storage.ifConnected("Adding subscription", write,
+                    () -> storage.delete(write, DELETE, id));
         });
     }
 
     public Promise<List<Subscription>> list(){
         return invokablePromise(promise -> {
-            final Select.Where list = QueryBuilder.select()
-                    .all()
-                    .from("Subscription")
-                    .where();
-            list.limit(1000);
-
-            cassandraTemplate.ifConnected("Listing subscriptions", promise,
-                            () -> cassandraTemplate.list(promise, list, map()));
+            storage.ifConnected("Listing subscriptions", promise,
+                            () -> storage.list(promise, LIST, map()));
         });
     }
 
+    /**
+     * Streams every subscription page by page, use this instead of {@link #list()} for large tables.
+     */
+    public void list(final Stream<Subscription> stream){
+        storage.ifConnected("Streaming subscriptions", stream,
+                () -> storage.stream(stream, LIST_ALL, map()));
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public StatementStats statementStats() {
+        return storage.statementStats();
+    }
+
+    public ConnectionState connectionState() {
+        return storage.connectionState();
+    }
+
     public Promise<Boolean> connect() {
-        return cassandraTemplate.connect();
+        return storage.connect();
     }
 
     public void close() {
-        cassandraTemplate.close();
+        storage.close();
     }
 
-    private RowMapper<Subscription> map() {
-        return row -> {
-            final String id = row.getString("id");
-            final String name = row.getString("name");
-            final String thirdPartyId = row.getString("thirdPartyId");
-            final long createTime = row.getTimestamp("createTime").getTime();
-            return new Subscription(id, name, thirdPartyId, createTime);
-        };
+    RowMapper<Subscription> map() {
+        return MAPPER;
     }
 }
@@ -16,7 +16,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.util.List;
 
-import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
 
 /**
  * Created by jasondaniel on 9/6/16.
@@ -25,31 +25,38 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
 public class AssetServiceImpl implements AssetService {
 
     private static final String PATH              = "/asset";
-    private static final String HEARTBEAT_KEY     = "i.am.alive";
     private static final String MGMT_CREATE_KEY   = "asset.create.called";
     private static final String MGMT_UPDATE_KEY   = "asset.update.called";
     private static final String MGMT_REMOVE_KEY   = "asset.remove.called";
     private static final String MGMT_RETRIEVE_KEY = "asset.retrieve.called";
     private static final String MGMT_LIST_KEY     = "asset.list.called";
+    private static final String MGMT_CACHE_KEY    = "asset.cache";
+    private static final String MGMT_CASSANDRA_KEY = "asset.cassandra";
+    private static final String MGMT_CONNECTION_KEY = "asset.cassandra.connection";
+    private static final String MGMT_COALESCED_KEY = "asset.retrieve.coalesced";
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final AssetRepository repository;
     private final ServiceManagementBundle mgmt;
+    private final EndpointTimings timings = new EndpointTimings("asset");
+    private final SingleFlight<String, Asset> retrieveCalls;
 
     public AssetServiceImpl(ServiceManagementBundle mgmt,
                                    AssetRepository repository){
         this.repository = repository;
         this.mgmt = mgmt;
+        this.retrieveCalls = new SingleFlight<>(mgmt, MGMT_COALESCED_KEY);
 
-        mgmt.reactor()
-                .addRepeatingTask(Duration.ofSeconds(3),
-                        () -> mgmt.increment(HEARTBEAT_KEY));
+        timings.reportEvery(Duration.ofSeconds(3), mgmt,
+                () -> repository.cacheStats().report(mgmt, MGMT_CACHE_KEY),
+                () -> repository.statementStats().report(mgmt, MGMT_CASSANDRA_KEY),
+                () -> repository.connectionState().report(mgmt, MGMT_CONNECTION_KEY));
     }
 
     @Override
     @POST(value = PATH)
     public Promise<Boolean> create(Asset asset) {
-        return invokablePromise(promise -> {
+        return timings.timed("create", promise -> {
             mgmt.increment(MGMT_CREATE_KEY);
 
             repository.store(asset)
@@ -69,7 +76,7 @@ public class AssetServiceImpl implements AssetService {
     @Override
     @PUT(value = PATH+"/{0}")
     public Promise<Boolean> update(final @PathVariable String id, Asset asset) {
-        return invokablePromise(promise -> {
+        return timings.timed("update", promise -> {
             mgmt.increment(MGMT_UPDATE_KEY);
 
             asset.setId(id);
@@ -90,7 +97,7 @@ public class AssetServiceImpl implements AssetService {
     @Override
     @DELETE(value = PATH+"/{0}")
     public Promise<Boolean> remove(final @PathVariable String id) {
-        return invokablePromise(promise -> {
+        return timings.timed("remove", promise -> {
             mgmt.increment(MGMT_REMOVE_KEY);
 
             repository.remove(id)
@@ -109,10 +116,10 @@ public class AssetServiceImpl implements AssetService {
     @Override
     @GET(value = PATH+"/{0}")
     public Promise<Asset> retrieve(final @PathVariable String id) {
-        return invokablePromise(promise -> {
+        return timings.timed("retrieve", promise -> {
             mgmt.increment(MGMT_RETRIEVE_KEY);
 
-            repository.find(id)
+            retrieveCalls.call(id, promise(Asset.class)
                     .then(subscription -> {
                         logger.info("asset "+id+" retrieved");
                         promise.resolve(subscription);
@@ -120,15 +127,15 @@ public class AssetServiceImpl implements AssetService {
                     .catchError(error -> {
                         logger.error("Unable to find asset with id="+id, error);
                         promise.reject("Unable to find asset with id="+id);
-                    })
-                    .invoke();
+                    }),
+                    () -> repository.find(id));
         });
     }
 
     @Override
     @GET(value = PATH)
     public Promise<List<Asset>> list() {
-        return invokablePromise(promise -> {
+        return timings.timed("list", promise -> {
             mgmt.increment(MGMT_LIST_KEY);
 
             repository.list()
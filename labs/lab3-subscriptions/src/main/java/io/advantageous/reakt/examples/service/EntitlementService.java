@@ -17,5 +17,7 @@ public interface EntitlementService {
 
     Promise<Entitlement> retrieve(String assetId, String subscriptionId);
 
+    Promise<Boolean> exists(String assetId, String subscriptionId);
+
     Promise<List<Entitlement>> list();
 }
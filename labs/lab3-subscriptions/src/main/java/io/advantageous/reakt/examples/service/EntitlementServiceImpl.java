@@ -6,6 +6,7 @@ import io.advantageous.qbit.annotation.RequestMapping;
 import io.advantageous.qbit.annotation.http.DELETE;
 import io.advantageous.qbit.annotation.http.GET;
 import io.advantageous.qbit.annotation.http.POST;
+import io.advantageous.reakt.examples.cache.EntitlementIndex;
 import io.advantageous.reakt.examples.model.Entitlement;
 import io.advantageous.reakt.examples.repository.EntitlementRepository;
 import io.advantageous.reakt.promise.Promise;
@@ -15,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.util.List;
 
-import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
 /**
  * Created by jasondaniel on 8/22/16.
@@ -25,40 +25,98 @@ public class EntitlementServiceImpl implements EntitlementService{
     private static final String PATH              = "/entitlement";
     private static final String ASSET_PATH        = "/asset";
     private static final String SUBSCRIPTION_PATH = "/subscription";
-    private static final String HEARTBEAT_KEY     = "i.am.alive";
+    private static final String EXISTS_PATH       = "/exists";
     private static final String MGMT_CREATE_KEY   = "entitlement.create.called";
     private static final String MGMT_REMOVE_KEY   = "entitlement.remove.called";
     private static final String MGMT_RETRIEVE_KEY = "entitlement.retrieve.called";
+    private static final String MGMT_EXISTS_KEY   = "entitlement.exists.called";
     private static final String MGMT_LIST_KEY     = "entitlement.list.called";
+    private static final String MGMT_CACHE_KEY    = "entitlement.cache";
+    private static final String MGMT_CASSANDRA_KEY = "entitlement.cassandra";
+    private static final String MGMT_CONNECTION_KEY = "entitlement.cassandra.connection";
+    private static final String MGMT_INDEX_NEGATIVE_KEY = "entitlement.index.negative";
+    private static final String MGMT_INDEX_SIZE_KEY     = "entitlement.index.size";
+    private static final String MGMT_INDEX_LOAD_KEY     = "entitlement.index.load";
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final EntitlementRepository repository;
     private final ServiceManagementBundle mgmt;
+    private final EndpointTimings timings = new EndpointTimings("entitlement");
+    private final EntitlementIndex index;
+    private final long indexReloadMillis;
 
     public EntitlementServiceImpl(ServiceManagementBundle mgmt,
                                   EntitlementRepository repository){
+        this(mgmt, repository, new EntitlementIndex(100_000, 0.01), Duration.ofMinutes(10));
+    }
+
+    /**
+     * @param index answers retrieve and exists for pairs that are definitely not entitled
+     *              without going to Cassandra, loaded in the background and reloaded every
+     *              reload interval to pick up entitlements written by other instances.
+     */
+    public EntitlementServiceImpl(ServiceManagementBundle mgmt,
+                                  EntitlementRepository repository,
+                                  EntitlementIndex index,
+                                  Duration indexReloadInterval){
         this.repository = repository;
         this.mgmt = mgmt;
+        this.index = index;
+        this.indexReloadMillis = indexReloadInterval.toMillis();
+
+        timings.reportEvery(Duration.ofSeconds(3), mgmt,
+                () -> repository.cacheStats().report(mgmt, MGMT_CACHE_KEY),
+                () -> repository.statementStats().report(mgmt, MGMT_CASSANDRA_KEY),
+                () -> repository.connectionState().report(mgmt, MGMT_CONNECTION_KEY));
 
         mgmt.reactor()
-                .addRepeatingTask(Duration.ofSeconds(3),
-                        () -> mgmt.increment(HEARTBEAT_KEY));
+                .addRepeatingTask(Duration.ofSeconds(3), this::loadIndexIfDue);
+    }
+
+    private void loadIndexIfDue() {
+        mgmt.recordLevel(MGMT_INDEX_SIZE_KEY, index.size());
+
+        if (index.isLoaded() && System.currentTimeMillis() - index.loadedAt() < indexReloadMillis) {
+            return;
+        }
+
+        if (!index.beginLoad()) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        repository.scanKeys(entitlement -> index.loaded(entitlement.getAssetId(), entitlement.getSubscriptionId()))
+                .then(count -> {
+                    final long now = System.currentTimeMillis();
+                    index.endLoad(now);
+                    mgmt.recordTiming(MGMT_INDEX_LOAD_KEY, now - start);
+                    logger.info("entitlement index loaded {} entitlements in {} ms", count, now - start);
+                })
+                .catchError(error -> {
+                    index.abortLoad();
+                    logger.warn("Unable to load entitlement index", error);
+                })
+                .invoke();
     }
 
     @Override
     @POST(value = PATH)
     public Promise<Boolean> create(final Entitlement entitlement) {
-        return invokablePromise(promise -> {
+        return timings.timed("create", promise -> {
             mgmt.increment(MGMT_CREATE_KEY);
 
             if(entitlement.getAssetId() == null){
                 promise.reject("Asset Id required");
+                return;
             }
 
             if(entitlement.getSubscriptionId() == null){
                 promise.reject("Subscription Id required");
+                return;
             }
 
+            index.add(entitlement.getAssetId(), entitlement.getSubscriptionId());
+
             repository.store(entitlement)
                     .then(result -> {
                         logger.info("entitlement created");
@@ -77,11 +135,12 @@ public class EntitlementServiceImpl implements EntitlementService{
     @DELETE(value = PATH+ASSET_PATH+"/{0}"+SUBSCRIPTION_PATH+"/{1}")
     public Promise<Boolean> remove(final @PathVariable String assetId,
                                    final @PathVariable String subscriptionId) {
-        return invokablePromise(promise -> {
+        return timings.timed("remove", promise -> {
             mgmt.increment(MGMT_REMOVE_KEY);
 
             repository.remove(assetId, subscriptionId)
                     .then(entitlement -> {
+                        index.remove(assetId, subscriptionId);
                         logger.info("entitlement removed");
                         promise.resolve(true);
                     })
@@ -97,9 +156,15 @@ public class EntitlementServiceImpl implements EntitlementService{
     @GET(value = PATH+ASSET_PATH+"/{0}"+SUBSCRIPTION_PATH+"/{1}")
     public Promise<Entitlement> retrieve(final @PathVariable String assetId,
                                          final @PathVariable String subscriptionId) {
-        return invokablePromise(promise -> {
+        return timings.timed("retrieve", promise -> {
             mgmt.increment(MGMT_RETRIEVE_KEY);
 
+            if (!index.mightContain(assetId, subscriptionId)) {
+                mgmt.increment(MGMT_INDEX_NEGATIVE_KEY);
+                promise.reject("Unable to find entitlement");
+                return;
+            }
+
             repository.find(assetId, subscriptionId)
                     .then(entitlement -> {
                         logger.info("entitlement retrieved");
@@ -113,10 +178,38 @@ public class EntitlementServiceImpl implements EntitlementService{
         });
     }
 
+    /**
+     * Answers whether the subscription is entitled to the asset. Pairs the index rules out
+     * are answered from memory, the rest are confirmed by reading only the key of the row.
+     * Use this instead of {@link #retrieve(String, String)} for authorization.
+     */
+    @Override
+    @GET(value = PATH+ASSET_PATH+"/{0}"+SUBSCRIPTION_PATH+"/{1}"+EXISTS_PATH)
+    public Promise<Boolean> exists(final @PathVariable String assetId,
+                                   final @PathVariable String subscriptionId) {
+        return timings.timed("exists", promise -> {
+            mgmt.increment(MGMT_EXISTS_KEY);
+
+            if (!index.mightContain(assetId, subscriptionId)) {
+                mgmt.increment(MGMT_INDEX_NEGATIVE_KEY);
+                promise.resolve(false);
+                return;
+            }
+
+            repository.exists(assetId, subscriptionId)
+                    .then(promise::resolve)
+                    .catchError(error -> {
+                        logger.error("Unable to check entitlement", error);
+                        promise.reject("Unable to check entitlement");
+                    })
+                    .invoke();
+        });
+    }
+
     @Override
     @GET(value = PATH)
     public Promise<List<Entitlement>> list() {
-        return invokablePromise(promise -> {
+        return timings.timed("list", promise -> {
             mgmt.increment(MGMT_LIST_KEY);
 
             repository.list()
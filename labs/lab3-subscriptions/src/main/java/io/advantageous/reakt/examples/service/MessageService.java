@@ -1,6 +1,7 @@
 package io.advantageous.reakt.examples.service;
 
 import io.advantageous.reakt.examples.model.Message;
+import io.advantageous.reakt.examples.model.PublishResult;
 import io.advantageous.reakt.promise.Promise;
 
 import java.util.List;
@@ -12,4 +13,8 @@ public interface MessageService {
 
     Promise<Boolean> publish(Message message);
 
+    Promise<Boolean> publishWithKey(String key, Message message);
+
+    Promise<List<PublishResult>> publishBatch(List<Message> messages);
+
 }
@@ -1,20 +1,28 @@
 package io.advantageous.reakt.examples.service;
 
+import io.advantageous.config.Config;
 import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.qbit.annotation.PathVariable;
 import io.advantageous.qbit.annotation.RequestMapping;
 import io.advantageous.qbit.annotation.http.POST;
 import io.advantageous.reakt.examples.messaging.Consumer;
+import io.advantageous.reakt.examples.messaging.DetectingMessageCodec;
+import io.advantageous.reakt.examples.messaging.MessageCodec;
 import io.advantageous.reakt.examples.messaging.Producer;
+import io.advantageous.reakt.examples.messaging.RetryStage;
+import io.advantageous.reakt.examples.model.DeadLetter;
 import io.advantageous.reakt.examples.model.Message;
+import io.advantageous.reakt.examples.model.PublishResult;
 import io.advantageous.reakt.examples.util.ConfigUtils;
 import io.advantageous.reakt.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
 
-import static io.advantageous.boon.json.JsonFactory.fromJson;
 import static io.advantageous.boon.json.JsonFactory.toJson;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 
@@ -24,48 +32,150 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
 @RequestMapping("/message-service")
 public class MessageServiceImpl implements MessageService {
     private static final String PATH              = "/message";
-    private static final String HEARTBEAT_KEY     = "i.am.alive";
-    private static final String MGMT_PUBLISH_KEY   = "message.publish.called";
+    private static final String KEY_PATH          = "/key";
+    private static final String BATCH_PATH        = "/batch";
+    private static final String MGMT_PUBLISH_KEY    = "message.publish.called";
+    private static final String MGMT_PRODUCER_KEY   = "message.producer";
+    private static final String MGMT_CONSUMER_KEY   = "message.consumer";
+    private static final String MGMT_RETRY_KEY      = "message.consumer.retry";
+    private static final String MGMT_BATCH_KEY      = "message.publish.batch.called";
+    private static final String MGMT_BATCH_SIZE_KEY = "message.publish.batch.size";
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final ServiceManagementBundle mgmt;
+    private final EndpointTimings timings = new EndpointTimings("message");
     private String topic;
+    private String deadLetterTopic;
     private Producer producer;
     private Consumer consumer;
+    private RetryStage<List<Message>> retries;
+    private MessageCodec<Message> codec;
 
     public MessageServiceImpl(ServiceManagementBundle mgmt){
-        topic = ConfigUtils.getConfig("message")
-                           .getConfig("kafka")
-                           .getString("topic");
+        this(mgmt, ConfigUtils.getConfig("message").getConfig("kafka"), new Producer(), new Consumer());
+    }
+
+    MessageServiceImpl(ServiceManagementBundle mgmt, Config config, Producer producer, Consumer consumer){
+        topic = config.getString("topic");
+        deadLetterTopic = config.getConfig("retry").getString("deadLetterTopic");
+        codec = new DetectingMessageCodec(config.getString("format"));
 
-        producer = new Producer();
-        consumer = new Consumer();
+        this.producer = producer;
+        this.consumer = consumer;
+        retries = RetryStage.fromConfig(config.getConfig("retry"), this::deadLetter);
 
         this.mgmt = mgmt;
-        mgmt.reactor()
-                .addRepeatingTask(Duration.ofSeconds(3),
-                        () -> mgmt.increment(HEARTBEAT_KEY));
+        timings.reportEvery(Duration.ofSeconds(3), mgmt,
+                () -> producer.stats().report(mgmt, MGMT_PRODUCER_KEY),
+                () -> consumer.stats().report(mgmt, MGMT_CONSUMER_KEY),
+                () -> retries.stats().report(mgmt, MGMT_RETRY_KEY));
 
         startConsumer();
     }
 
+    /**
+     * Publishes keyed on the message id, so messages spread over all partitions.
+     */
     @Override
     @POST(value = PATH)
     public Promise<Boolean> publish(final Message message) {
-        return invokablePromise(promise -> {
+        return publishWithKey(message.getId(), message);
+    }
+
+    /**
+     * Publishes keyed on the given key. Messages with the same key go to the same partition
+     * and are consumed in the order they were published.
+     */
+    @Override
+    @POST(value = PATH + KEY_PATH + "/{0}")
+    public Promise<Boolean> publishWithKey(final @PathVariable String key, final Message message) {
+        return timings.timed("publish", promise -> {
             mgmt.increment(MGMT_PUBLISH_KEY);
 
-            producer.send("message-key", toJson(message))
+            producer.send(key, codec.encode(message))
                     .then(promise::resolve)
                     .catchError(promise::reject)
                     .invoke();
         });
     }
 
+    /**
+     * Publishes every message keyed on its id as one burst. Answers with one result per
+     * message, in order, with the partition and offset or the error. Rejects a missing list.
+     */
+    @Override
+    @POST(value = PATH + BATCH_PATH)
+    public Promise<List<PublishResult>> publishBatch(final List<Message> messages) {
+        return timings.timed("publishBatch", promise -> {
+            mgmt.increment(MGMT_BATCH_KEY);
+
+            if (messages == null || messages.contains(null)) {
+                promise.reject("Messages required");
+                return;
+            }
+
+            mgmt.recordLevel(MGMT_BATCH_SIZE_KEY, messages.size());
+
+            final List<String> keys = new ArrayList<>(messages.size());
+            final List<byte[]> payloads = new ArrayList<>(messages.size());
+            for (final Message message : messages) {
+                keys.add(message.getId());
+                payloads.add(codec.encode(message));
+            }
+
+            producer.sendAll(keys, payloads)
+                    .then(promise::resolve)
+                    .catchError(promise::reject)
+                    .invoke();
+        });
+    }
+
+    /**
+     * Failed batches are retried with backoff and dead lettered after the last attempt,
+     * payloads that are not a message at all are dead lettered at once. A batch that cannot
+     * be dead lettered either stops the consumer before its offsets are committed.
+     */
     private void startConsumer(){
-        consumer.consume(topic, result -> {
-            Message message = fromJson(result.get(), Message.class);
-            logger.info(message.getMessage());
-        }).invoke();
+        consumer.onUndecodable((payload, error) ->
+                deadLetterPayload(new String(payload, StandardCharsets.UTF_8), error));
+
+        consumer.processBatches(topic, codec, retries.wrap(this::process)).invoke();
+    }
+
+    private Promise<Boolean> process(final List<Message> messages) {
+        return invokablePromise(promise -> {
+            messages.forEach(message -> logger.info(message.getMessage()));
+            promise.resolve(true);
+        });
+    }
+
+    private Promise<Boolean> deadLetter(final List<Message> messages, final Throwable error) {
+        return invokablePromise(promise -> {
+            final List<String> keys = new ArrayList<>(messages.size());
+            final List<byte[]> payloads = new ArrayList<>(messages.size());
+            for (final Message message : messages) {
+                keys.add(message.getId());
+                payloads.add(toJson(new DeadLetter(topic, message.getId(), toJson(message),
+                        String.valueOf(error.getMessage()), retries.maxAttempts()))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+
+            producer.sendAllTo(deadLetterTopic, keys, payloads)
+                    .then(results -> {
+                        final long failed = results.stream().filter(result -> !result.isSent()).count();
+                        if (failed == 0) {
+                            promise.resolve(true);
+                        } else {
+                            promise.reject(failed + " of " + results.size() + " dead letters were not sent");
+                        }
+                    })
+                    .catchError(promise::reject)
+                    .invoke();
+        });
+    }
+
+    private Promise<Boolean> deadLetterPayload(final String payload, final Throwable error) {
+        return producer.sendTo(deadLetterTopic, null,
+                toJson(new DeadLetter(topic, null, payload, String.valueOf(error.getMessage()), 0)));
     }
 }
@@ -0,0 +1,67 @@
+package io.advantageous.reakt.examples.service;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent calls for the same key share one in-flight repository call.
+ *
+ * The first call for a key invokes the loader, calls that arrive while it is outstanding
+ * are parked in the outstanding call map and resolved from the same result. Every parked
+ * call is counted under the coalesced stat key.
+ *
+ * The loader completes on whatever thread the repository answers on, and the services
+ * share one management bundle, so the map is concurrent. Calls join a flight with
+ * {@code compute} and the flight leaves the map with {@code remove(key, flight)}, after
+ * which no call can join it anymore.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, List<Promise<V>>> outstandingCallMap = new ConcurrentHashMap<>();
+    private final Runnable coalesced;
+
+    SingleFlight(final ServiceManagementBundle mgmt, final String coalescedKey) {
+        this(() -> mgmt.increment(coalescedKey));
+    }
+
+    /**
+     * @param coalesced runs for every call that joined a flight instead of loading.
+     */
+    SingleFlight(final Runnable coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    void call(final K key, final Promise<V> returnPromise, final Supplier<Promise<V>> loader) {
+        final List<Promise<V>> flight = new ArrayList<>();
+        final List<Promise<V>> joined = outstandingCallMap.compute(key, (k, outstandingCalls) -> {
+            final List<Promise<V>> calls = outstandingCalls == null ? flight : outstandingCalls;
+            calls.add(returnPromise);
+            return calls;
+        });
+
+        if (joined != flight) {
+            coalesced.run();
+            return;
+        }
+
+        loader.get()
+                .then(value -> complete(key, flight).forEach(promise -> promise.resolve(value)))
+                .catchError(error -> complete(key, flight).forEach(promise -> promise.reject(error)))
+                .invoke();
+    }
+
+    int outstanding() {
+        return outstandingCallMap.size();
+    }
+
+    private List<Promise<V>> complete(final K key, final List<Promise<V>> flight) {
+        outstandingCallMap.remove(key, flight);
+        return flight;
+    }
+}
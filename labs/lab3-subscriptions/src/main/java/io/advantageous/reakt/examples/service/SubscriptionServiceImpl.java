@@ -17,7 +17,7 @@ import java.time.Duration;
 import java.util.List;
 
 import static io.advantageous.reakt.promise.Promises.all;
-import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
 
 /**
  * Created by jasondaniel on 8/11/16.
@@ -26,32 +26,39 @@ import static io.advantageous.reakt.promise.Promises.invokablePromise;
 @RequestMapping("/subscription-service")
 public class SubscriptionServiceImpl implements SubscriptionService {
     private static final String PATH = "/subscription";
-    private static final String HEARTBEAT_KEY = "i.am.alive";
     private static final String MGMT_CREATE_KEY = "subscription.create.called";
     private static final String MGMT_UPDATE_KEY = "subscription.update.called";
     private static final String MGMT_REMOVE_KEY = "subscription.remove.called";
     private static final String MGMT_RETRIEVE_KEY = "subscription.retrieve.called";
     private static final String MGMT_LIST_KEY = "subscription.list.called";
+    private static final String MGMT_CACHE_KEY = "subscription.cache";
+    private static final String MGMT_CASSANDRA_KEY = "subscription.cassandra";
+    private static final String MGMT_CONNECTION_KEY = "subscription.cassandra.connection";
+    private static final String MGMT_COALESCED_KEY = "subscription.retrieve.coalesced";
     private final ThirdPartySubscriptionService thirdPartySubscriptionService = new ThirdPartySubscriptionService();
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final SubscriptionRepository repository;
     private final ServiceManagementBundle mgmt;
+    private final EndpointTimings timings = new EndpointTimings("subscription");
+    private final SingleFlight<String, Subscription> retrieveCalls;
 
     public SubscriptionServiceImpl(ServiceManagementBundle mgmt,
                                    SubscriptionRepository repository) {
         this.repository = repository;
         this.mgmt = mgmt;
+        this.retrieveCalls = new SingleFlight<>(mgmt, MGMT_COALESCED_KEY);
 
-        mgmt.reactor()
-                .addRepeatingTask(Duration.ofSeconds(3),
-                        () -> mgmt.increment(HEARTBEAT_KEY));
+        timings.reportEvery(Duration.ofSeconds(3), mgmt,
+                () -> repository.cacheStats().report(mgmt, MGMT_CACHE_KEY),
+                () -> repository.statementStats().report(mgmt, MGMT_CASSANDRA_KEY),
+                () -> repository.connectionState().report(mgmt, MGMT_CONNECTION_KEY));
     }
 
     @Override
     @POST(value = PATH)
     public Promise<Boolean> create(final Subscription subscription) {
-        return invokablePromise(returnPromise -> {
+        return timings.timed("create", returnPromise -> {
             mgmt.increment(MGMT_CREATE_KEY);
 
             thirdPartySubscriptionService.create(subscription)
@@ -80,7 +87,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @PUT(value = PATH + "/{0}")
     public Promise<Boolean> update(final @PathVariable String id,
                                    final Subscription subscription) {
-        return invokablePromise(returnPromise -> {
+        return timings.timed("update", returnPromise -> {
             mgmt.increment(MGMT_UPDATE_KEY);
 
             subscription.setId(id);
@@ -114,7 +121,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Override
     @DELETE(value = PATH + "/{0}")
     public Promise<Boolean> remove(final @PathVariable String id) {
-        return invokablePromise(returnPromise -> {
+        return timings.timed("remove", returnPromise -> {
             mgmt.increment(MGMT_REMOVE_KEY);
 
             Promise<Boolean> repoPromise = repository.remove(id)
@@ -148,10 +155,10 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Override
     @GET(value = PATH + "/{0}")
     public Promise<Subscription> retrieve(final @PathVariable String id) {
-        return invokablePromise(promise -> {
+        return timings.timed("retrieve", promise -> {
             mgmt.increment(MGMT_RETRIEVE_KEY);
 
-            repository.find(id)
+            retrieveCalls.call(id, promise(Subscription.class)
                     .then(subscription -> {
                         logger.info("subscription " + id + " retrieved");
                         promise.resolve(subscription);
@@ -159,15 +166,15 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                     .catchError(error -> {
                         logger.error("Unable to find subscription with id=" + id, error);
                         promise.reject("Unable to find subscription with id=" + id);
-                    })
-                    .invoke();
+                    }),
+                    () -> repository.find(id));
         });
     }
 
     @Override
     @GET(value = PATH)
     public Promise<List<Subscription>> list() {
-        return invokablePromise(promise -> {
+        return timings.timed("list", promise -> {
             mgmt.increment(MGMT_LIST_KEY);
 
             repository.list()
@@ -0,0 +1,46 @@
+package io.advantageous.reakt.examples.template;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Gives every repository a {@link CassandraTemplate} on the same Cassandra cluster.
+ */
+public class CassandraStorageFactory implements StorageFactory {
+
+    private final int replicationFactor;
+    private final List<URI> cassandraUris;
+    private final boolean preparedStatements;
+    private final long slowQueryMillis;
+    private final ConnectionProfile connectionProfile;
+
+    public CassandraStorageFactory(final int replicationFactor, final List<URI> cassandraUris,
+                                   final boolean preparedStatements) {
+        this(replicationFactor, cassandraUris, preparedStatements, StatementStats.DEFAULT_SLOW_QUERY_MILLIS);
+    }
+
+    public CassandraStorageFactory(final int replicationFactor, final List<URI> cassandraUris,
+                                   final boolean preparedStatements, final long slowQueryMillis) {
+        this(replicationFactor, cassandraUris, preparedStatements, slowQueryMillis, ConnectionProfile.DEFAULT);
+    }
+
+    /**
+     * @param slowQueryMillis   statements that take at least this long are logged.
+     * @param connectionProfile routing, pooling, compression and timeouts of the driver.
+     */
+    public CassandraStorageFactory(final int replicationFactor, final List<URI> cassandraUris,
+                                   final boolean preparedStatements, final long slowQueryMillis,
+                                   final ConnectionProfile connectionProfile) {
+        this.replicationFactor = replicationFactor;
+        this.cassandraUris = cassandraUris;
+        this.preparedStatements = preparedStatements;
+        this.slowQueryMillis = slowQueryMillis;
+        this.connectionProfile = connectionProfile;
+    }
+
+    @Override
+    public <T> Storage<T> storage(final String tableDefinition, final String keySpace) {
+        return new CassandraTemplate<>(replicationFactor, cassandraUris, tableDefinition, keySpace,
+                preparedStatements, slowQueryMillis, connectionProfile);
+    }
+}
@@ -1,12 +1,21 @@
 package io.advantageous.reakt.examples.template;
 
-import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.Delete;
 import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.Select;
 import com.datastax.driver.core.querybuilder.Update;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +25,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
-import static com.datastax.driver.core.Cluster.builder;
 import static io.advantageous.reakt.guava.Guava.registerCallback;
 import static io.advantageous.reakt.promise.Promises.invokablePromise;
 import static io.advantageous.reakt.promise.Promises.promise;
@@ -26,9 +35,16 @@ import static java.util.Arrays.asList;
 /**
  * Created by jasondaniel on 8/25/16.
  */
-public class CassandraTemplate<T> {
+public class CassandraTemplate<T> implements Storage<T> {
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
     private final List<URI> cassandraUris;
     private final int replicationFactor;
+    private final boolean preparedStatements;
+    private final PreparedStatementCache preparedStatementCache = new PreparedStatementCache();
+    private final StatementStats statementStats;
+    private final ConnectionProfile connectionProfile;
+    private final ConnectionState connectionState;
     private String tableDefinition;
     private String keySpace;
 
@@ -38,23 +54,56 @@ public class CassandraTemplate<T> {
 
     public CassandraTemplate(final int replicationFactor, final List<URI> cassandraUris,
                                                           String tableDefinition, String keySpace){
+        this(replicationFactor, cassandraUris, tableDefinition, keySpace, true);
+    }
+
+    /**
+     * @param preparedStatements when false statements are sent as plain CQL every time,
+     *                           which is only useful to benchmark against the prepared path.
+     */
+    public CassandraTemplate(final int replicationFactor, final List<URI> cassandraUris,
+                             String tableDefinition, String keySpace, final boolean preparedStatements){
+        this(replicationFactor, cassandraUris, tableDefinition, keySpace, preparedStatements,
+                StatementStats.DEFAULT_SLOW_QUERY_MILLIS);
+    }
+
+    public CassandraTemplate(final int replicationFactor, final List<URI> cassandraUris,
+                             String tableDefinition, String keySpace, final boolean preparedStatements,
+                             final long slowQueryMillis){
+        this(replicationFactor, cassandraUris, tableDefinition, keySpace, preparedStatements,
+                slowQueryMillis, ConnectionProfile.DEFAULT);
+    }
+
+    /**
+     * @param slowQueryMillis   statements that take at least this long are logged.
+     * @param connectionProfile routing, pooling, compression and timeouts of the driver.
+     */
+    public CassandraTemplate(final int replicationFactor, final List<URI> cassandraUris,
+                             String tableDefinition, String keySpace, final boolean preparedStatements,
+                             final long slowQueryMillis, final ConnectionProfile connectionProfile){
+        this.statementStats = new StatementStats(slowQueryMillis);
+        this.connectionProfile = connectionProfile;
+        this.connectionState = new ConnectionState(this::connectSession);
         this.tableDefinition = tableDefinition;
         this.keySpace = keySpace;
         this.replicationFactor = replicationFactor;
+        this.preparedStatements = preparedStatements;
         this.cassandraUris = Collections.unmodifiableList(cassandraUris);
-        logger.info("Cassandra connection URIs {}", cassandraUris);
+        logger.info("Cassandra connection URIs {}, prepared statements {}", cassandraUris, preparedStatements);
     }
 
-    public void insert(Promise<Boolean> promise, Insert insert){
-        registerCallback(sessionRef.get().executeAsync(insert),
+    @Override
+    public void insert(Promise<Boolean> promise, Insert insert, Object... values){
+        registerCallback(executeAsync(insert, values),
                 promise(ResultSet.class)
                         .catchError(promise::reject)
                         .then(resultSet -> promise.resolve(resultSet.wasApplied()))
         );
     }
 
-    public void list(Promise<List<T>> promise, Select.Where select, RowMapper<T> rowMapper){
-        registerCallback(sessionRef.get().executeAsync(select),
+    @Override
+    public void list(Promise<List<T>> promise, Select.Where select, RowMapper<T> rowMapper, Object... values){
+        registerCallback(executeAsync(select, values),
                 promise(ResultSet.class)
                         .catchError(error -> promise.reject("Problem loading entities", error))
                         .thenSafe(resultSet -> {
@@ -64,37 +113,153 @@ public class CassandraTemplate<T> {
                         }));
     }
 
-   public void update(Promise<Boolean> promise, Update.Where update){
-        registerCallback(sessionRef.get().executeAsync(update),
+    @Override
+    public void stream(Stream<T> stream, Select.Where select, RowMapper<T> rowMapper, Object... values){
+        stream(stream, select, rowMapper, DEFAULT_FETCH_SIZE, values);
+    }
+
+    /**
+     * Streams every row of the select to the handler, page by page, instead of loading
+     * the whole result set into a list. Do not put a limit on the select.
+     *
+     * @see PagedResultStream
+     */
+    public void stream(Stream<T> stream, Select.Where select, RowMapper<T> rowMapper, int fetchSize, Object... values){
+        new PagedResultStream<>(
+                pagingState -> executeAsync(select, pagingState != null, statement -> {
+                    statement.setFetchSize(fetchSize);
+                    if (pagingState != null) {
+                        statement.setPagingState(pagingState);
+                    }
+                }, values),
+                rowMapper, stream, fetchSize).start();
+    }
+
+    /**
+     * Reads the whole table range by range and hands every row to the consumer. The select
+     * binds the start and end token of each range, the promise resolves with the row count.
+     *
+     * @see TokenRangeScan
+     */
+    @Override
+    public void scan(Promise<Long> promise, Select.Where rangeSelect, RowMapper<T> rowMapper, Consumer<T> consumer){
+        final Session session = sessionRef.get();
+        new TokenRangeScan<>(session.getCluster().getMetadata(),
+                (range, pagingState) -> executeAsync(rangeSelect, pagingState != null, statement -> {
+                    statement.setFetchSize(DEFAULT_FETCH_SIZE);
+                    if (pagingState != null) {
+                        statement.setPagingState(pagingState);
+                    }
+                }, range),
+                rowMapper, consumer, promise).start();
+    }
+
+    @Override
+    public void update(Promise<Boolean> promise, Update.Where update, Object... values){
+        registerCallback(executeAsync(update, values),
                 promise(ResultSet.class)
                         .catchError(promise::reject)
                          .then(resultSet -> promise.resolve(resultSet.wasApplied()))
         );
     }
 
-    public void find(Promise<T> promise, Select.Where select, RowMapper<T> rowMapper){
-        registerCallback(sessionRef.get().executeAsync(select),
+    @Override
+    public void find(Promise<T> promise, Select.Where select, RowMapper<T> rowMapper, Object... values){
+        registerCallback(executeAsync(select, values),
                 promise(ResultSet.class)
                         .catchError(error -> promise.reject("Problem loading entity", error))
                         .thenSafe(resultSet -> {
-                            promise.resolve(rowMapper.map(resultSet.one()));
+                            final Row row = resultSet.one();
+                            if (row == null) {
+                                promise.reject(new EntityNotFoundException("Entity not found"));
+                            } else {
+                                promise.resolve(rowMapper.map(row));
+                            }
                         }));
     }
 
-    public void delete(Promise<Boolean> promise, Delete.Where delete){
-        registerCallback(sessionRef.get().executeAsync(delete),
+    @Override
+    public void delete(Promise<Boolean> promise, Delete.Where delete, Object... values){
+        registerCallback(executeAsync(delete, values),
                 promise(ResultSet.class)
                         .catchError(promise::reject)
                         .then(resultSet -> promise.resolve(resultSet.wasApplied()))
         );
     }
 
+    @Override
+    public void exists(Promise<Boolean> promise, Select.Where select, Object... values){
+        registerCallback(executeAsync(select, values),
+                promise(ResultSet.class)
+                        .catchError(error -> promise.reject("Problem checking entity", error))
+                        .thenSafe(resultSet -> promise.resolve(resultSet.one() != null)));
+    }
+
+    /**
+     * Statement latency, rows, paging round trips and coordinators of this template.
+     */
+    @Override
+    public StatementStats statementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Connect attempts, failures and backoff of this template.
+     */
+    @Override
+    public ConnectionState connectionState() {
+        return connectionState;
+    }
+
+    /**
+     * Runs the statement shape with the given bind values. Shapes are prepared once per session
+     * and bound on every call, unless prepared statements were switched off.
+     */
+    private ListenableFuture<ResultSet> executeAsync(final RegularStatement statement, final Object... values) {
+        return executeAsync(statement, false, bound -> {}, values);
+    }
+
+    /**
+     * @param paged true when fetching a page after the first one, counted as a paging round trip.
+     */
+    private ListenableFuture<ResultSet> executeAsync(final RegularStatement statement,
+                                                     final boolean paged,
+                                                     final Consumer<Statement> options,
+                                                     final Object... values) {
+        final long start = System.nanoTime();
+        final Session session = sessionRef.get();
+
+        if (!preparedStatements) {
+            final Statement simple = new SimpleStatement(statement.getQueryString(), values);
+            simple.setIdempotent(ConnectionProfile.isIdempotent(statement));
+            options.accept(simple);
+            return statementStats.track(statement, start, paged, session.executeAsync(simple));
+        }
+
+        return statementStats.track(statement, start, paged,
+                Futures.transform(preparedStatementCache.prepare(session, statement),
+                        (AsyncFunction<PreparedStatement, ResultSet>) prepared -> {
+                            final Statement bound = prepared.bind(values);
+                            bound.setIdempotent(ConnectionProfile.isIdempotent(statement));
+                            options.accept(bound);
+                            return session.executeAsync(bound);
+                        }));
+    }
+
+    /**
+     * Connects, or joins the connect attempt in flight, see {@link ConnectionState}.
+     */
+    @Override
     public Promise<Boolean> connect() {
+        return invokablePromise(connectionState::connect);
+    }
+
+    private Promise<Boolean> connectSession() {
         return invokablePromise(promise ->
                 connectInternal()
                         .catchError(promise::reject)
                         .then(session -> {
-                            sessionRef.set(session);
+                            useSession(session);
                             promise.resolve(true);
                         }).invoke()
         );
@@ -110,24 +275,26 @@ public class CassandraTemplate<T> {
         });
     }
 
+    /**
+     * Takes a session of the cluster shared with the other templates on the same contact points,
+     * see {@link SessionRegistry}.
+     */
     private void doConnect(Promise<Session> promise) {
-        final Cluster.Builder builder = builder();
-        cassandraUris.forEach(cassandraURI -> builder.withPort(cassandraURI.getPort())
-                .addContactPoints(cassandraURI.getHost()).build());
-
         final Promise<Session> sessionPromise = promise(Session.class)
                 .catchError(error -> promise.reject("Unable to load initial session", error))
                 .then(session -> buildDBIfNeeded(session, promise));
 
         registerCallback(
-                builder.build().connectAsync(),
+                SessionRegistry.SHARED.connect(cassandraUris, connectionProfile, keySpace),
                 sessionPromise);
     }
 
     private synchronized void buildDBIfNeeded(final Session session,
                                               final Promise<Session> promise) {
 
+        // Already set up, the session replaces the current one and is released in its place.
         if (isConnected()) {
+            promise.resolve(session);
             return;
         }
 
@@ -164,39 +331,72 @@ public class CassandraTemplate<T> {
 
     }
 
+    @Override
     public boolean isConnected() {
         return sessionRef.get() != null && !sessionRef.get().isClosed();
     }
 
+    @Override
     public void ifConnected(final String operation,
                              final Promise<?> promise, final Runnable runnable) {
-        // If we are not connected, try to connect, but fail this request.
+        // If we are not connected, run once the one connect attempt in flight succeeded.
         if (!isConnected()) {
-            forceConnect();
-            //Promise rejected because we were not connected.
-            promise.reject("Not connected to cassandra for operation " + operation);
+            connectionState.connect(promise(Boolean.class)
+                    .then(connected -> run(operation, promise, runnable))
+                    //Promise rejected because we could not connect.
+                    .catchError(error -> promise.reject("Not connected to cassandra for operation " + operation, error)));
         } else {
-            // Try running the operation
-            try {
-                runnable.run();
-            } catch (Exception ex) {
-                //Operation failed, exit
-                promise.reject("Error running " + operation, ex);
-            }
+            run(operation, promise, runnable);
         }
     }
 
-    private void forceConnect() {
-        this.connectInternal()
-                .catchError(error -> logger.error("Can't connect to cassandra {}", error))
-                .then(sessionRef::set)
-                .invoke();
+    private void run(final String operation, final Promise<?> promise, final Runnable runnable) {
+        // Try running the operation
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            //Operation failed, exit
+            promise.reject("Error running " + operation, ex);
+        }
     }
 
+    @Override
+    public void ifConnected(final String operation,
+                            final Stream<?> stream, final Runnable runnable) {
+        if (!isConnected()) {
+            connectionState.connect(promise(Boolean.class)
+                    .then(connected -> run(operation, stream, runnable))
+                    .catchError(error -> stream.fail(
+                            new IllegalStateException("Not connected to cassandra for operation " + operation, error))));
+        } else {
+            run(operation, stream, runnable);
+        }
+    }
+
+    private void run(final String operation, final Stream<?> stream, final Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            stream.fail(new IllegalStateException("Error running " + operation, ex));
+        }
+    }
+
+    /**
+     * Switches to the new session and gives the one it replaces back to the registry.
+     */
+    private void useSession(final Session session) {
+        final Session previous = sessionRef.getAndSet(session);
+        if (previous != null) {
+            SessionRegistry.SHARED.release(previous);
+        }
+    }
+
+    @Override
     public void close() {
-        if (isConnected()) {
+        final Session session = sessionRef.getAndSet(null);
+        if (session != null) {
             try {
-                sessionRef.get().close();
+                SessionRegistry.SHARED.release(session);
             } catch (Exception ex) {
                 logger.error("Error closing session");
             }
@@ -0,0 +1,148 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PoolingOptions;
+import com.datastax.driver.core.ProtocolOptions;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.SocketOptions;
+import com.datastax.driver.core.policies.ConstantSpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.LoadBalancingPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import com.datastax.driver.core.querybuilder.Select;
+import io.advantageous.config.Config;
+
+import java.util.Objects;
+
+/**
+ * How the driver connects and routes, read from the {@code cassandra.connection} config.
+ *
+ * Requests go round robin over the hosts of the local data center, token aware first to a
+ * replica of the partition so the coordinator does not add a hop. Zero leaves a pool size,
+ * request limit or timeout at the driver default. With a speculative delay, a read that has
+ * not answered after the delay is also sent to the next host and the first answer wins;
+ * only selects are marked idempotent, writes are never sent twice.
+ */
+public class ConnectionProfile {
+
+    /** The driver defaults, token aware over the data center of the contact points. */
+    public static final ConnectionProfile DEFAULT = new ConnectionProfile("", true, 0, 0, 0, "none", 0, 0, 0);
+
+    private final String localDc;
+    private final boolean tokenAware;
+    private final int coreConnectionsPerHost;
+    private final int maxConnectionsPerHost;
+    private final int maxRequestsPerConnection;
+    private final ProtocolOptions.Compression compression;
+    private final int readTimeoutMillis;
+    private final long speculativeDelayMillis;
+    private final int speculativeExecutions;
+
+    /**
+     * @param localDc               the local data center, empty for the one of the contact points.
+     * @param compression           none, snappy or lz4.
+     * @param speculativeExecutions extra executions of a slow read, 0 to switch speculation off.
+     */
+    public ConnectionProfile(final String localDc, final boolean tokenAware,
+                             final int coreConnectionsPerHost, final int maxConnectionsPerHost,
+                             final int maxRequestsPerConnection, final String compression,
+                             final int readTimeoutMillis,
+                             final long speculativeDelayMillis, final int speculativeExecutions) {
+        if (coreConnectionsPerHost > 0 && maxConnectionsPerHost > 0 && coreConnectionsPerHost > maxConnectionsPerHost) {
+            throw new IllegalArgumentException("coreConnectionsPerHost " + coreConnectionsPerHost
+                    + " is more than maxConnectionsPerHost " + maxConnectionsPerHost);
+        }
+        this.localDc = localDc;
+        this.tokenAware = tokenAware;
+        this.coreConnectionsPerHost = coreConnectionsPerHost;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        this.compression = ProtocolOptions.Compression.valueOf(compression.toUpperCase());
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.speculativeDelayMillis = speculativeDelayMillis;
+        this.speculativeExecutions = speculativeExecutions;
+    }
+
+    public static ConnectionProfile fromConfig(final Config config) {
+        return new ConnectionProfile(config.getString("localDc"),
+                config.getBoolean("tokenAware"),
+                config.getInt("coreConnectionsPerHost"),
+                config.getInt("maxConnectionsPerHost"),
+                config.getInt("maxRequestsPerConnection"),
+                config.getString("compression"),
+                config.getInt("readTimeoutMillis"),
+                config.getInt("speculativeDelayMillis"),
+                config.getInt("speculativeExecutions"));
+    }
+
+    /**
+     * Sets the policies and options of the profile on the builder.
+     */
+    public Cluster.Builder configure(final Cluster.Builder builder) {
+        final DCAwareRoundRobinPolicy.Builder dcAware = DCAwareRoundRobinPolicy.builder();
+        if (!localDc.isEmpty()) {
+            dcAware.withLocalDc(localDc);
+        }
+        final LoadBalancingPolicy loadBalancing = tokenAware ?
+                new TokenAwarePolicy(dcAware.build()) : dcAware.build();
+        builder.withLoadBalancingPolicy(loadBalancing);
+
+        final PoolingOptions pooling = new PoolingOptions();
+        if (coreConnectionsPerHost > 0 && maxConnectionsPerHost > 0) {
+            pooling.setConnectionsPerHost(HostDistance.LOCAL, coreConnectionsPerHost, maxConnectionsPerHost);
+        } else if (maxConnectionsPerHost > 0) {
+            pooling.setMaxConnectionsPerHost(HostDistance.LOCAL, maxConnectionsPerHost);
+        } else if (coreConnectionsPerHost > 0) {
+            pooling.setCoreConnectionsPerHost(HostDistance.LOCAL, coreConnectionsPerHost);
+        }
+        if (maxRequestsPerConnection > 0) {
+            pooling.setMaxRequestsPerConnection(HostDistance.LOCAL, maxRequestsPerConnection);
+        }
+        builder.withPoolingOptions(pooling);
+
+        if (readTimeoutMillis > 0) {
+            builder.withSocketOptions(new SocketOptions().setReadTimeoutMillis(readTimeoutMillis));
+        }
+
+        builder.withCompression(compression);
+
+        if (speculativeExecutions > 0) {
+            builder.withSpeculativeExecutionPolicy(
+                    new ConstantSpeculativeExecutionPolicy(speculativeDelayMillis, speculativeExecutions));
+        }
+        return builder;
+    }
+
+    /**
+     * Reads can be speculatively executed, everything else runs once.
+     */
+    public static boolean isIdempotent(final RegularStatement statement) {
+        return statement instanceof Select || statement instanceof Select.Where;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConnectionProfile)) return false;
+
+        ConnectionProfile that = (ConnectionProfile) o;
+
+        return tokenAware == that.tokenAware
+                && coreConnectionsPerHost == that.coreConnectionsPerHost
+                && maxConnectionsPerHost == that.maxConnectionsPerHost
+                && maxRequestsPerConnection == that.maxRequestsPerConnection
+                && readTimeoutMillis == that.readTimeoutMillis
+                && speculativeDelayMillis == that.speculativeDelayMillis
+                && speculativeExecutions == that.speculativeExecutions
+                && compression == that.compression
+                && localDc.equals(that.localDc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(localDc, tokenAware, coreConnectionsPerHost, maxConnectionsPerHost,
+                maxRequestsPerConnection, compression, readTimeoutMillis, speculativeDelayMillis,
+                speculativeExecutions);
+    }
+}
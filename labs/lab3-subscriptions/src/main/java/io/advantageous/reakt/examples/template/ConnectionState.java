@@ -0,0 +1,204 @@
+package io.advantageous.reakt.examples.template;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Connect state of a {@link Storage}, with at most one connect attempt in flight.
+ *
+ * Callers that find the storage disconnected join the attempt in flight and all get its
+ * outcome. After a failed attempt the next one waits for a backoff that doubles from the
+ * initial backoff up to the max, jittered over its upper half so instances do not reconnect
+ * in lock step. Callers during the backoff are rejected at once. There is no timer, the
+ * first caller after the backoff starts the next attempt.
+ */
+public class ConnectionState {
+
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30_000;
+
+    /** Reported as its ordinal. */
+    public enum State {
+        DISCONNECTED, CONNECTING, CONNECTED, BACKING_OFF
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ConnectionState.class);
+    private final Supplier<Promise<Boolean>> connect;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final LongSupplier clock;
+
+    private final List<Promise<Boolean>> waiting = new ArrayList<>();
+    private State state = State.DISCONNECTED;
+    private int failuresInARow;
+    private long backoffMillis;
+    private long nextAttemptMillis;
+    private Throwable lastError;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private long reportedAttempts;
+    private long reportedFailures;
+    private long reportedJoined;
+    private long reportedRejected;
+
+    /**
+     * @param connect makes one connect attempt when invoked, resolves once connected.
+     */
+    public ConnectionState(final Supplier<Promise<Boolean>> connect) {
+        this(connect, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public ConnectionState(final Supplier<Promise<Boolean>> connect,
+                           final long initialBackoffMillis, final long maxBackoffMillis) {
+        this(connect, initialBackoffMillis, maxBackoffMillis, System::currentTimeMillis);
+    }
+
+    ConnectionState(final Supplier<Promise<Boolean>> connect, final long initialBackoffMillis,
+                    final long maxBackoffMillis, final LongSupplier clock) {
+        this.connect = connect;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Resolves the waiter once connected. Joins the attempt in flight, starts one if there
+     * is none and the backoff passed, or rejects the waiter at once during the backoff.
+     */
+    public void connect(final Promise<Boolean> waiter) {
+        final long remainingMillis;
+        final Throwable error;
+        final boolean start;
+        synchronized (this) {
+            if (state == State.CONNECTING) {
+                joined.incrementAndGet();
+                waiting.add(waiter);
+                return;
+            }
+            remainingMillis = nextAttemptMillis - clock.getAsLong();
+            error = lastError;
+            start = state != State.BACKING_OFF || remainingMillis <= 0;
+            if (start) {
+                state = State.CONNECTING;
+                waiting.add(waiter);
+            }
+        }
+
+        if (start) {
+            attempt();
+        } else {
+            rejected.incrementAndGet();
+            waiter.reject("Not connected, next connect attempt in " + remainingMillis + " ms", error);
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public long attempts() {
+        return attempts.get();
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+
+    /**
+     * Sends the state as {@code prefix.state}, the current backoff as {@code prefix.backoff},
+     * and the counts since the last report as {@code prefix.attempts}, {@code prefix.failures},
+     * {@code prefix.joined} for callers that shared an attempt in flight and
+     * {@code prefix.rejected} for callers turned away during the backoff.
+     * Call it from the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        synchronized (this) {
+            mgmt.recordLevel(prefix + ".state", state.ordinal());
+            mgmt.recordLevel(prefix + ".backoff", (int) backoffMillis);
+        }
+        reportedAttempts = report(mgmt, prefix + ".attempts", attempts.get(), reportedAttempts);
+        reportedFailures = report(mgmt, prefix + ".failures", failures.get(), reportedFailures);
+        reportedJoined = report(mgmt, prefix + ".joined", joined.get(), reportedJoined);
+        reportedRejected = report(mgmt, prefix + ".rejected", rejected.get(), reportedRejected);
+    }
+
+    /**
+     * The backoff after the given number of failed attempts in a row, between half and all
+     * of the doubled initial backoff, never more than the max.
+     */
+    static long backoffMillis(final int failuresInARow, final long initialBackoffMillis,
+                              final long maxBackoffMillis) {
+        final long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(failuresInARow - 1, 30));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling - ceiling / 2 + 1);
+    }
+
+    private void attempt() {
+        attempts.incrementAndGet();
+        try {
+            connect.get()
+                    .then(this::connected)
+                    .catchError(this::failed)
+                    .invoke();
+        } catch (Exception ex) {
+            failed(ex);
+        }
+    }
+
+    private void connected(final Boolean connected) {
+        final List<Promise<Boolean>> resolved;
+        synchronized (this) {
+            state = State.CONNECTED;
+            failuresInARow = 0;
+            backoffMillis = 0;
+            lastError = null;
+            resolved = drain();
+        }
+        resolved.forEach(waiter -> waiter.resolve(true));
+    }
+
+    private void failed(final Throwable error) {
+        final List<Promise<Boolean>> failed;
+        final long backoff;
+        final int failedInARow;
+        synchronized (this) {
+            failedInARow = ++failuresInARow;
+            backoff = backoffMillis(failuresInARow, initialBackoffMillis, maxBackoffMillis);
+            state = State.BACKING_OFF;
+            backoffMillis = backoff;
+            nextAttemptMillis = clock.getAsLong() + backoff;
+            lastError = error;
+            failed = drain();
+        }
+        failures.incrementAndGet();
+        logger.warn("Connect attempt failed {} times in a row, next attempt in {} ms: {}",
+                failedInARow, backoff, error.getMessage());
+        failed.forEach(waiter -> waiter.reject(error));
+    }
+
+    private List<Promise<Boolean>> drain() {
+        final List<Promise<Boolean>> drained = new ArrayList<>(waiting);
+        waiting.clear();
+        return drained;
+    }
+
+    private static long report(final ServiceManagementBundle mgmt, final String name,
+                               final long count, final long reported) {
+        if (count > reported) {
+            mgmt.recordCount(name, count - reported);
+        }
+        return count;
+    }
+}
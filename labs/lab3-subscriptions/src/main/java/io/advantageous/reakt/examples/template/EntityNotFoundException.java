@@ -0,0 +1,11 @@
+package io.advantageous.reakt.examples.template;
+
+/**
+ * Rejects a find when no row matched, so callers can tell a miss from a failed query.
+ */
+public class EntityNotFoundException extends RuntimeException {
+
+    public EntityNotFoundException(final String message) {
+        super(message);
+    }
+}
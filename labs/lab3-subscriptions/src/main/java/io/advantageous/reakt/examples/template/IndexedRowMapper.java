@@ -0,0 +1,122 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Select;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
+
+/**
+ * Base of the row mappers generated from the model annotations.
+ *
+ * Looking a column up by name hashes and compares the name for every column of every row.
+ * Rows of the same statement share their column definitions, prepared statements even
+ * across executions, so the indexes are resolved once per definitions and the generated
+ * code reads every column by index. A column the row does not have, as in a projection,
+ * resolves to -1 and is left unset, so the mapper also maps the rows of a
+ * {@link #select(String...) projection}.
+ */
+public abstract class IndexedRowMapper<T> implements RowMapper<T> {
+
+    private final String table;
+    private final List<String> columns;
+    private volatile Indexes indexes = new Indexes(null, new int[0]);
+
+    protected IndexedRowMapper(final String table, final String... columns) {
+        this.table = table;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    public String table() {
+        return table;
+    }
+
+    /**
+     * The mapped columns in the order {@link #values(Object)} binds them.
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * An insert of every mapped column, bind it with {@link #values(Object)}.
+     */
+    public Insert insert() {
+        final Insert insert = QueryBuilder.insertInto(table);
+        for (final String column : columns) {
+            insert.value(column, bindMarker());
+        }
+        return insert;
+    }
+
+    /**
+     * A select of only the given columns, for callers that do not need the whole entity.
+     * The columns that are not selected are left unset by {@link #map(Row)}.
+     *
+     * @throws IllegalArgumentException if a column is not mapped.
+     */
+    public Select select(final String... columns) {
+        for (final String column : columns) {
+            if (!this.columns.contains(column)) {
+                throw new IllegalArgumentException(column + " is not a column of " + table);
+            }
+        }
+        return QueryBuilder.select(columns).from(table);
+    }
+
+    /**
+     * A select of the first key column restricted on every key column with a limit of one,
+     * to check a row exists with {@link Storage#exists}. Bind the key values in order.
+     */
+    public Select.Where exists(final String... keyColumns) {
+        final Select.Where exists = select(keyColumns[0]).where(QueryBuilder.eq(keyColumns[0], bindMarker()));
+        for (int index = 1; index < keyColumns.length; index++) {
+            exists.and(QueryBuilder.eq(keyColumns[index], bindMarker()));
+        }
+        exists.limit(1);
+        return exists;
+    }
+
+    /**
+     * The values of every mapped column of the entity, in the order of {@link #columns()}.
+     */
+    public abstract Object[] values(final T entity);
+
+    /**
+     * The index of every mapped column in the row, in the order of {@link #columns()}.
+     */
+    protected final int[] indexes(final Row row) {
+        final Object definitions = row instanceof RowColumns ?
+                ((RowColumns) row).columns() : row.getColumnDefinitions();
+
+        final Indexes cached = indexes;
+        if (cached.definitions == definitions) {
+            return cached.indexes;
+        }
+
+        final int[] resolved = new int[columns.size()];
+        for (int index = 0; index < resolved.length; index++) {
+            resolved[index] = definitions instanceof ColumnDefinitions ?
+                    ((ColumnDefinitions) definitions).getIndexOf(columns.get(index)) :
+                    ((RowColumns) row).indexOf(columns.get(index));
+        }
+        indexes = new Indexes(definitions, resolved);
+        return resolved;
+    }
+
+    private static final class Indexes {
+        private final Object definitions;
+        private final int[] indexes;
+
+        private Indexes(final Object definitions, final int[] indexes) {
+            this.definitions = definitions;
+            this.indexes = indexes;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.reakt.Stream;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static io.advantageous.reakt.guava.Guava.registerCallback;
+import static io.advantageous.reakt.promise.Promises.promise;
+
+/**
+ * Pushes the rows of a paged query to a Reakt {@link Stream} one page at a time.
+ *
+ * The first page is sent right away and counts as the initial demand. After that the next
+ * page is only fetched, using the {@link PagingState} of the last one, while the handler keeps
+ * asking for more rows with {@code StreamResult.request(n)}. Cancelling from the handler stops
+ * the paging.
+ * At most one page of rows is held in memory no matter how large the table is.
+ */
+class PagedResultStream<T> {
+
+    private final Function<PagingState, ListenableFuture<ResultSet>> pageFetcher;
+    private final RowMapper<T> rowMapper;
+    private final Stream<T> stream;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicBoolean waitingForDemand = new AtomicBoolean();
+    private volatile PagingState pagingState;
+
+    PagedResultStream(final Function<PagingState, ListenableFuture<ResultSet>> pageFetcher,
+                      final RowMapper<T> rowMapper,
+                      final Stream<T> stream,
+                      final int fetchSize) {
+        this.pageFetcher = pageFetcher;
+        this.rowMapper = rowMapper;
+        this.stream = stream;
+        this.requested.set(fetchSize);
+    }
+
+    void start() {
+        fetch(null);
+    }
+
+    private void fetch(final PagingState state) {
+        registerCallback(pageFetcher.apply(state),
+                promise(ResultSet.class)
+                        .catchError(stream::fail)
+                        .thenSafe(this::deliverPage));
+    }
+
+    private void deliverPage(final ResultSet resultSet) {
+        final PagingState next = resultSet.getExecutionInfo().getPagingState();
+
+        /* Only read what is already fetched, iterating past it would block on the next page. */
+        int available = resultSet.getAvailableWithoutFetching();
+        while (available-- > 0 && !cancelled.get()) {
+            requested.decrementAndGet();
+            stream.reply(rowMapper.map(resultSet.one()), false, this::cancel, this::request);
+        }
+
+        if (cancelled.get()) {
+            return;
+        }
+
+        if (next == null) {
+            stream.complete();
+            return;
+        }
+
+        pagingState = next;
+        waitingForDemand.set(true);
+        if (requested.get() > 0 && waitingForDemand.compareAndSet(true, false)) {
+            fetch(next);
+        }
+    }
+
+    private void request(final long count) {
+        requested.addAndGet(count);
+        if (requested.get() > 0 && waitingForDemand.compareAndSet(true, false)) {
+            fetch(pagingState);
+        }
+    }
+
+    private void cancel() {
+        cancelled.set(true);
+    }
+}
@@ -0,0 +1,66 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Prepares each distinct statement shape once per {@link Session}.
+ *
+ * Statements are keyed by their CQL text, so callers should build them with bind markers
+ * and pass the values when executing. When a new session shows up (reconnect) the cache
+ * is dropped and the shapes get prepared again against the new session.
+ */
+public class PreparedStatementCache {
+
+    private final ConcurrentMap<String, ListenableFuture<PreparedStatement>> statements = new ConcurrentHashMap<>();
+    private volatile Session session;
+
+    public ListenableFuture<PreparedStatement> prepare(final Session session, final RegularStatement statement) {
+        if (this.session != session) {
+            reset(session);
+        }
+
+        final String cql = statement.getQueryString();
+        final ListenableFuture<PreparedStatement> existing = statements.get(cql);
+        if (existing != null) {
+            return existing;
+        }
+
+        final ListenableFuture<PreparedStatement> prepared = session.prepareAsync(statement);
+        final ListenableFuture<PreparedStatement> raced = statements.putIfAbsent(cql, prepared);
+        if (raced != null) {
+            return raced;
+        }
+
+        /* Do not cache a failed prepare, the next call will try again. */
+        Futures.addCallback(prepared, new FutureCallback<PreparedStatement>() {
+            @Override
+            public void onSuccess(final PreparedStatement preparedStatement) {
+            }
+
+            @Override
+            public void onFailure(final Throwable error) {
+                statements.remove(cql, prepared);
+            }
+        });
+        return prepared;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    private synchronized void reset(final Session session) {
+        if (this.session != session) {
+            statements.clear();
+            this.session = session;
+        }
+    }
+}
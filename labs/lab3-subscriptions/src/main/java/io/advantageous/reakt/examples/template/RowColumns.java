@@ -0,0 +1,18 @@
+package io.advantageous.reakt.examples.template;
+
+/**
+ * Column lookup of rows that have no driver column definitions, such as the rows of the
+ * in-memory database.
+ */
+public interface RowColumns {
+
+    /**
+     * The columns of the row, the same instance for every row of a statement.
+     */
+    Object columns();
+
+    /**
+     * @return the index of the column, -1 if the row does not have it.
+     */
+    int indexOf(String column);
+}
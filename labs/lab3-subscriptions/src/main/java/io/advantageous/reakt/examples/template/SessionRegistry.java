@@ -0,0 +1,191 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Shares one {@link Cluster} per set of contact points and {@link ConnectionProfile} across
+ * every {@link CassandraTemplate} of the process, so the repositories share the driver
+ * threads, the control connection and the cluster metadata instead of each building its own.
+ *
+ * Statements name their table without a keyspace and the session switches to it with USE,
+ * so templates get one session per keyspace on the shared cluster. Templates on the same
+ * keyspace share that session too. A session is closed when the last template released it,
+ * the cluster when its last session is gone. A failed connect is not kept, the next call
+ * builds a new cluster.
+ */
+public class SessionRegistry {
+
+    /** The registry of the process. */
+    public static final SessionRegistry SHARED = new SessionRegistry();
+
+    private final Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+    private final Map<ClusterKey, SharedCluster> clusters = new HashMap<>();
+
+    /**
+     * A session of the cluster for the contact points and profile, shared by every caller
+     * with the same keyspace. Hand the session back with {@link #release(Session)}.
+     */
+    public synchronized ListenableFuture<Session> connect(final List<URI> cassandraUris,
+                                                          final ConnectionProfile connectionProfile,
+                                                          final String keySpace) {
+        final ClusterKey key = new ClusterKey(cassandraUris, connectionProfile);
+        SharedCluster cluster = clusters.get(key);
+        if (cluster == null || cluster.cluster.isClosed()) {
+            cluster = new SharedCluster(build(cassandraUris, connectionProfile));
+            clusters.put(key, cluster);
+            logger.info("Cassandra cluster for {} created, {} clusters in the process", key.contactPoints,
+                    clusters.size());
+        }
+        return cluster.session(key, keySpace);
+    }
+
+    /**
+     * Gives a session from {@link #connect(List, ConnectionProfile, String)} back.
+     */
+    public synchronized void release(final Session session) {
+        for (final Iterator<Map.Entry<ClusterKey, SharedCluster>> clusterEntries = clusters.entrySet().iterator();
+             clusterEntries.hasNext(); ) {
+            final Map.Entry<ClusterKey, SharedCluster> clusterEntry = clusterEntries.next();
+            final SharedCluster cluster = clusterEntry.getValue();
+            for (final Iterator<SharedSession> sessions = cluster.sessions.values().iterator(); sessions.hasNext(); ) {
+                final SharedSession shared = sessions.next();
+                if (shared.session != session) {
+                    continue;
+                }
+                if (--shared.users > 0) {
+                    return;
+                }
+                sessions.remove();
+                session.closeAsync();
+                if (cluster.sessions.isEmpty()) {
+                    clusterEntries.remove();
+                    cluster.cluster.closeAsync();
+                    logger.info("Cassandra cluster for {} closed", clusterEntry.getKey().contactPoints);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of clusters in the registry.
+     */
+    public synchronized int clusters() {
+        return clusters.size();
+    }
+
+    private synchronized void failed(final ClusterKey key, final SharedCluster cluster,
+                                     final String keySpace, final SharedSession shared) {
+        cluster.sessions.remove(keySpace, shared);
+        if (cluster.sessions.isEmpty()) {
+            clusters.remove(key, cluster);
+            cluster.cluster.closeAsync();
+        }
+    }
+
+    private synchronized void connected(final SharedSession shared, final Session session) {
+        shared.session = session;
+    }
+
+    private static Cluster build(final List<URI> cassandraUris, final ConnectionProfile connectionProfile) {
+        final Cluster.Builder builder = connectionProfile.configure(Cluster.builder());
+        cassandraUris.forEach(cassandraURI -> builder.withPort(cassandraURI.getPort())
+                .addContactPoints(cassandraURI.getHost()));
+        return builder.build();
+    }
+
+    private final class SharedCluster {
+        private final Cluster cluster;
+        private final Map<String, SharedSession> sessions = new HashMap<>();
+
+        private SharedCluster(final Cluster cluster) {
+            this.cluster = cluster;
+        }
+
+        private ListenableFuture<Session> session(final ClusterKey key, final String keySpace) {
+            SharedSession shared = sessions.get(keySpace);
+            if (shared == null || !shared.usable()) {
+                final SharedSession created = new SharedSession(cluster.connectAsync());
+                sessions.put(keySpace, created);
+                Futures.addCallback(created.future, new FutureCallback<Session>() {
+                    @Override
+                    public void onSuccess(final Session session) {
+                        connected(created, session);
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable error) {
+                        failed(key, SharedCluster.this, keySpace, created);
+                    }
+                });
+                shared = created;
+            }
+            shared.users++;
+            return shared.future;
+        }
+    }
+
+    private static final class SharedSession {
+        private final ListenableFuture<Session> future;
+        private Session session;
+        private int users;
+
+        private SharedSession(final ListenableFuture<Session> future) {
+            this.future = future;
+        }
+
+        /** Still connecting or connected, not failed or closed. */
+        private boolean usable() {
+            if (!future.isDone()) {
+                return true;
+            }
+            try {
+                return !future.get().isClosed();
+            } catch (Exception ex) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Contact points in any order with the profile they are connected with.
+     */
+    static final class ClusterKey {
+        private final Set<String> contactPoints = new TreeSet<>();
+        private final ConnectionProfile connectionProfile;
+
+        ClusterKey(final List<URI> cassandraUris, final ConnectionProfile connectionProfile) {
+            cassandraUris.forEach(cassandraURI ->
+                    contactPoints.add(cassandraURI.getHost() + ':' + cassandraURI.getPort()));
+            this.connectionProfile = connectionProfile;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) return true;
+            if (!(other instanceof ClusterKey)) return false;
+            final ClusterKey that = (ClusterKey) other;
+            return contactPoints.equals(that.contactPoints) && connectionProfile.equals(that.connectionProfile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(contactPoints, connectionProfile);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.Select;
+import com.datastax.driver.core.querybuilder.Update;
+import io.advantageous.reakt.Stream;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * What the repositories need from a store.
+ *
+ * Statement shapes are built once with the driver's QueryBuilder, using bind markers, and
+ * the values are passed on every call. {@link CassandraTemplate} runs them against Cassandra,
+ * {@link io.advantageous.reakt.examples.template.memory.InMemoryDatabase} against maps in
+ * this process, so the repositories and services run unchanged on either one.
+ */
+public interface Storage<T> {
+
+    void insert(Promise<Boolean> promise, Insert insert, Object... values);
+
+    void list(Promise<List<T>> promise, Select.Where select, RowMapper<T> rowMapper, Object... values);
+
+    /**
+     * Streams every row of the select to the handler. Do not put a limit on the select.
+     */
+    void stream(Stream<T> stream, Select.Where select, RowMapper<T> rowMapper, Object... values);
+
+    /**
+     * Reads the whole table and hands every row to the consumer. The select restricts the
+     * partition key token with two bind markers, start exclusive and end inclusive.
+     * The promise resolves with the row count.
+     */
+    void scan(Promise<Long> promise, Select.Where rangeSelect, RowMapper<T> rowMapper, Consumer<T> consumer);
+
+    void update(Promise<Boolean> promise, Update.Where update, Object... values);
+
+    /**
+     * Rejects with {@link EntityNotFoundException} if the select has no rows.
+     */
+    void find(Promise<T> promise, Select.Where select, RowMapper<T> rowMapper, Object... values);
+
+    void delete(Promise<Boolean> promise, Delete.Where delete, Object... values);
+
+    /**
+     * Resolves true if the select has a row, without mapping it. Select only the partition
+     * key with a limit of one, see {@link IndexedRowMapper#exists(String...)}.
+     */
+    void exists(Promise<Boolean> promise, Select.Where select, Object... values);
+
+    /**
+     * Latency, rows, paging round trips and coordinators of the statements run so far.
+     */
+    StatementStats statementStats();
+
+    /**
+     * Connect attempts, failures and backoff, see {@link ConnectionState}.
+     */
+    ConnectionState connectionState();
+
+    Promise<Boolean> connect();
+
+    boolean isConnected();
+
+    /**
+     * Runs the operation if connected, otherwise once the connect attempt in flight succeeded.
+     * Rejects the promise if it fails.
+     */
+    void ifConnected(String operation, Promise<?> promise, Runnable runnable);
+
+    /**
+     * Runs the operation if connected, otherwise once the connect attempt in flight succeeded.
+     * Fails the stream if it fails.
+     */
+    void ifConnected(String operation, Stream<?> stream, Runnable runnable);
+
+    void close();
+}
@@ -0,0 +1,12 @@
+package io.advantageous.reakt.examples.template;
+
+/**
+ * Creates the {@link Storage} for a repository from its keyspace and table definition.
+ */
+public interface StorageFactory {
+
+    /**
+     * @param tableDefinition the keyspace and table DDL, with a %d for the replication factor.
+     */
+    <T> Storage<T> storage(String tableDefinition, String keySpace);
+}
@@ -0,0 +1,95 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.TokenRange;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static io.advantageous.reakt.guava.Guava.registerCallback;
+import static io.advantageous.reakt.promise.Promises.promise;
+
+/**
+ * Reads a whole table by walking the token ring one range at a time, page by page.
+ *
+ * Ranges are read one after the other so the scan puts a steady, bounded load on the
+ * cluster instead of one huge query. The select must have two bind markers for the range,
+ * {@code token(pk) > ? AND token(pk) <= ?}. Assumes the Murmur3 partitioner.
+ */
+class TokenRangeScan<T> {
+
+    private final BiFunction<Object[], PagingState, ListenableFuture<ResultSet>> pageFetcher;
+    private final RowMapper<T> rowMapper;
+    private final Consumer<T> consumer;
+    private final Promise<Long> promise;
+    private final Iterator<Object[]> ranges;
+    private long count;
+
+    TokenRangeScan(final Metadata metadata,
+                   final BiFunction<Object[], PagingState, ListenableFuture<ResultSet>> pageFetcher,
+                   final RowMapper<T> rowMapper,
+                   final Consumer<T> consumer,
+                   final Promise<Long> promise) {
+        this.pageFetcher = pageFetcher;
+        this.rowMapper = rowMapper;
+        this.consumer = consumer;
+        this.promise = promise;
+        this.ranges = bounds(metadata).iterator();
+    }
+
+    void start() {
+        nextRange();
+    }
+
+    private void nextRange() {
+        if (!ranges.hasNext()) {
+            promise.resolve(count);
+            return;
+        }
+        fetch(ranges.next(), null);
+    }
+
+    private void fetch(final Object[] range, final PagingState pagingState) {
+        registerCallback(pageFetcher.apply(range, pagingState),
+                promise(ResultSet.class)
+                        .catchError(error -> promise.reject("Token range scan failed", error))
+                        .thenSafe(resultSet -> {
+                            int available = resultSet.getAvailableWithoutFetching();
+                            while (available-- > 0) {
+                                consumer.accept(rowMapper.map(resultSet.one()));
+                                count++;
+                            }
+
+                            final PagingState next = resultSet.getExecutionInfo().getPagingState();
+                            if (next == null) {
+                                nextRange();
+                            } else {
+                                fetch(range, next);
+                            }
+                        }));
+    }
+
+    /**
+     * Start (exclusive) and end (inclusive) tokens of every range of the ring. A range that
+     * wraps around is split in two, the part that ends at the minimum token ends at the
+     * maximum Murmur3 token instead since nothing is greater than the minimum token.
+     */
+    private static List<Object[]> bounds(final Metadata metadata) {
+        final List<Object[]> bounds = new ArrayList<>();
+        for (final TokenRange range : metadata.getTokenRanges()) {
+            for (final TokenRange unwrapped : range.unwrap()) {
+                final long start = (Long) unwrapped.getStart().getValue();
+                final long end = (Long) unwrapped.getEnd().getValue();
+                bounds.add(new Object[]{start, end == Long.MIN_VALUE ? Long.MAX_VALUE : end});
+            }
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,147 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A statement shape parsed from the CQL the QueryBuilder generates.
+ *
+ * Only the subset the repositories use is understood: INSERT, UPDATE ... SET, DELETE and
+ * SELECT with a column list or *, WHERE relations joined with AND, and LIMIT. Every value
+ * must be a bind marker, they are bound in the order they appear. Token relations are kept
+ * but ignored when reading, the in-memory store is a single range.
+ */
+final class CqlStatement {
+
+    enum Kind {INSERT, UPDATE, DELETE, SELECT}
+
+    private static final Pattern INSERT = Pattern.compile(
+            "INSERT\\s+INTO\\s+(\\S+?)\\s*\\((.+?)\\)\\s*VALUES\\s*\\((.+?)\\).*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern UPDATE = Pattern.compile(
+            "UPDATE\\s+(\\S+?)\\s+SET\\s+(.+?)\\s+WHERE\\s+(.+?)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DELETE = Pattern.compile(
+            "DELETE\\s+.*?FROM\\s+(\\S+?)(?:\\s+WHERE\\s+(.+?))?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SELECT = Pattern.compile(
+            "SELECT\\s+(.+?)\\s+FROM\\s+(\\S+?)(?:\\s+WHERE\\s+(.+?))?(?:\\s+LIMIT\\s+(\\d+))?",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern RELATION = Pattern.compile(
+            "(token\\s*\\(.+?\\)|\\S+?)\\s*(=|>=|<=|>|<)\\s*\\?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ASSIGNMENT = Pattern.compile("(\\S+?)\\s*=\\s*\\?", Pattern.DOTALL);
+
+    final Kind kind;
+    final String table;
+    /** Insert columns, update SET columns, or the selected columns, empty for SELECT *. */
+    final List<String> columns;
+    final List<Relation> where;
+    final int limit;
+
+    private CqlStatement(final Kind kind, final String table, final List<String> columns,
+                         final List<Relation> where, final int limit) {
+        this.kind = kind;
+        this.table = table;
+        this.columns = columns;
+        this.where = where;
+        this.limit = limit;
+    }
+
+    static CqlStatement parse(final String cql) {
+        final String statement = cql.trim().replaceAll(";$", "").trim();
+        Matcher matcher;
+
+        if ((matcher = INSERT.matcher(statement)).matches()) {
+            final List<String> columns = names(matcher.group(2));
+            for (final String value : matcher.group(3).split(",")) {
+                requireBindMarker(value, cql);
+            }
+            return new CqlStatement(Kind.INSERT, name(matcher.group(1)), columns,
+                    Collections.emptyList(), Integer.MAX_VALUE);
+        }
+
+        if ((matcher = UPDATE.matcher(statement)).matches()) {
+            final List<String> columns = new ArrayList<>();
+            for (final String assignment : matcher.group(2).split(",")) {
+                final Matcher set = ASSIGNMENT.matcher(assignment.trim());
+                if (!set.matches()) {
+                    throw new UnsupportedOperationException("Only col=? assignments are supported: " + cql);
+                }
+                columns.add(name(set.group(1)));
+            }
+            return new CqlStatement(Kind.UPDATE, name(matcher.group(1)), columns,
+                    relations(matcher.group(3), cql), Integer.MAX_VALUE);
+        }
+
+        if ((matcher = DELETE.matcher(statement)).matches()) {
+            return new CqlStatement(Kind.DELETE, name(matcher.group(1)), Collections.emptyList(),
+                    relations(matcher.group(2), cql), Integer.MAX_VALUE);
+        }
+
+        if ((matcher = SELECT.matcher(statement)).matches()) {
+            final String selection = matcher.group(1).trim();
+            return new CqlStatement(Kind.SELECT, name(matcher.group(2)),
+                    selection.equals("*") ? Collections.emptyList() : names(selection),
+                    relations(matcher.group(3), cql),
+                    matcher.group(4) == null ? Integer.MAX_VALUE : Integer.parseInt(matcher.group(4)));
+        }
+
+        throw new UnsupportedOperationException("Statement not supported by the in-memory store: " + cql);
+    }
+
+    /**
+     * Unquoted names are case insensitive like in Cassandra, quoted ones are kept as is.
+     */
+    static String name(final String name) {
+        final String trimmed = name.trim();
+        if (trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed.toLowerCase();
+    }
+
+    private static List<String> names(final String list) {
+        final List<String> names = new ArrayList<>();
+        for (final String name : list.split(",")) {
+            names.add(name(name));
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static List<Relation> relations(final String where, final String cql) {
+        if (where == null || where.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Relation> relations = new ArrayList<>();
+        for (final String relation : AND.split(where.trim())) {
+            final Matcher matcher = RELATION.matcher(relation.trim());
+            if (!matcher.matches()) {
+                throw new UnsupportedOperationException("Only relations on bind markers are supported: " + cql);
+            }
+            final String column = matcher.group(1);
+            final boolean token = column.toLowerCase().startsWith("token");
+            relations.add(new Relation(token ? column : name(column), matcher.group(2), token));
+        }
+        return Collections.unmodifiableList(relations);
+    }
+
+    private static void requireBindMarker(final String value, final String cql) {
+        if (!value.trim().equals("?")) {
+            throw new UnsupportedOperationException("Only bind marker values are supported: " + cql);
+        }
+    }
+
+    static final class Relation {
+        final String column;
+        final String operator;
+        final boolean token;
+
+        private Relation(final String column, final String operator, final boolean token) {
+            this.column = column;
+            this.operator = operator;
+            this.token = token;
+        }
+    }
+}
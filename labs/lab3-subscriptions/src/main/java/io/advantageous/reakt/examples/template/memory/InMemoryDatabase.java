@@ -0,0 +1,103 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import com.datastax.driver.core.RegularStatement;
+import io.advantageous.config.Config;
+import io.advantageous.reakt.examples.template.Storage;
+import io.advantageous.reakt.examples.template.StorageFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tables of every repository in memory, for tests and load tests without Cassandra.
+ *
+ * Tables are created from the repositories' own DDL and the statements are the same
+ * QueryBuilder shapes that go to Cassandra, parsed once per shape. Writes are applied at
+ * once, but every result can be handed back after an injected latency plus a random jitter
+ * on a scheduler, so callers see Cassandra like timings and threading.
+ */
+public class InMemoryDatabase implements StorageFactory {
+
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, InMemoryTable> tables = new ConcurrentHashMap<>();
+    /** Statement shapes are built once and reused, so they are looked up by identity. */
+    private final Map<RegularStatement, CqlStatement> statements = new ConcurrentHashMap<>();
+
+    public InMemoryDatabase() {
+        this(Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param latency added to every operation before its result is handed back.
+     * @param jitter  up to this much more is added at random.
+     */
+    public InMemoryDatabase(final Duration latency, final Duration jitter) {
+        this.latencyMicros = TimeUnit.NANOSECONDS.toMicros(latency.toNanos());
+        this.jitterMicros = TimeUnit.NANOSECONDS.toMicros(jitter.toNanos());
+        this.scheduler = latencyMicros == 0 && jitterMicros == 0 ? null :
+                Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                    final Thread thread = new Thread(runnable, "in-memory-storage");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Reads {@code latencyMicros} and {@code jitterMicros}.
+     */
+    public static InMemoryDatabase fromConfig(final Config config) {
+        return new InMemoryDatabase(Duration.ofNanos(config.getInt("latencyMicros") * 1000L),
+                Duration.ofNanos(config.getInt("jitterMicros") * 1000L));
+    }
+
+    @Override
+    public <T> Storage<T> storage(final String tableDefinition, final String keySpace) {
+        for (final InMemoryTable table : InMemoryTable.fromDefinition(tableDefinition)) {
+            tables.putIfAbsent(tableKey(keySpace, table.name), table);
+        }
+        return new InMemoryStorage<>(this, keySpace);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    InMemoryTable table(final String keySpace, final String name) {
+        final InMemoryTable table = tables.get(tableKey(keySpace, name));
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown table " + keySpace + '.' + name);
+        }
+        return table;
+    }
+
+    CqlStatement statement(final RegularStatement statement) {
+        return statements.computeIfAbsent(statement, shape -> CqlStatement.parse(shape.getQueryString()));
+    }
+
+    /**
+     * Runs the completion after the injected latency, or right away if there is none.
+     */
+    void complete(final Runnable completion) {
+        if (scheduler == null) {
+            completion.run();
+            return;
+        }
+
+        final long delay = jitterMicros == 0 ? latencyMicros :
+                latencyMicros + ThreadLocalRandom.current().nextLong(jitterMicros + 1);
+        scheduler.schedule(completion, delay, TimeUnit.MICROSECONDS);
+    }
+
+    private static String tableKey(final String keySpace, final String name) {
+        return CqlStatement.name(keySpace) + '.' + name;
+    }
+}
@@ -0,0 +1,399 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.LocalDate;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Token;
+import com.datastax.driver.core.TupleValue;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.UDTValue;
+import com.google.common.reflect.TypeToken;
+import io.advantageous.reakt.examples.template.RowColumns;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Presents an in-memory row as a driver {@link Row} so the repositories' row mappers work
+ * unchanged.
+ *
+ * Only the getters the mappers use are supported, by column name or index: getString,
+ * getTimestamp, getUUID, getObject, the numeric and boolean getters and isNull. The values
+ * are returned as they were bound, there are no codecs. The rest throw. The rows are also
+ * {@link RowColumns}, so generated mappers resolve the column indexes once per statement.
+ */
+final class InMemoryRow implements Row, RowColumns {
+
+    private final List<String> columns;
+    private final Object[] values;
+
+    private InMemoryRow(final List<String> columns, final Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    static Row row(final List<String> columns, final Object[] values) {
+        return new InMemoryRow(columns, values);
+    }
+
+    @Override
+    public Object columns() {
+        return columns;
+    }
+
+    @Override
+    public int indexOf(final String column) {
+        return columns.indexOf(CqlStatement.name(column));
+    }
+
+    @Override
+    public boolean isNull(final int index) {
+        return values[index] == null;
+    }
+
+    @Override
+    public boolean getBool(final int index) {
+        final Object value = values[index];
+        return value != null && (Boolean) value;
+    }
+
+    @Override
+    public int getInt(final int index) {
+        final Object value = values[index];
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    public long getLong(final int index) {
+        final Object value = values[index];
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    @Override
+    public double getDouble(final int index) {
+        final Object value = values[index];
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public Date getTimestamp(final int index) {
+        return (Date) values[index];
+    }
+
+    @Override
+    public String getString(final int index) {
+        return (String) values[index];
+    }
+
+    @Override
+    public UUID getUUID(final int index) {
+        return (UUID) values[index];
+    }
+
+    @Override
+    public Object getObject(final int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean isNull(final String name) {
+        return isNull(index(name));
+    }
+
+    @Override
+    public boolean getBool(final String name) {
+        return getBool(index(name));
+    }
+
+    @Override
+    public int getInt(final String name) {
+        return getInt(index(name));
+    }
+
+    @Override
+    public long getLong(final String name) {
+        return getLong(index(name));
+    }
+
+    @Override
+    public double getDouble(final String name) {
+        return getDouble(index(name));
+    }
+
+    @Override
+    public Date getTimestamp(final String name) {
+        return getTimestamp(index(name));
+    }
+
+    @Override
+    public String getString(final String name) {
+        return getString(index(name));
+    }
+
+    @Override
+    public UUID getUUID(final String name) {
+        return getUUID(index(name));
+    }
+
+    @Override
+    public Object getObject(final String name) {
+        return getObject(index(name));
+    }
+
+    private int index(final String column) {
+        final int index = indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException(column + " is not a column in this row");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "Row" + Arrays.toString(values);
+    }
+
+    /* Not used by the mappers. */
+
+    private static UnsupportedOperationException unsupported(final String method) {
+        return new UnsupportedOperationException("In-memory rows do not support " + method);
+    }
+
+    @Override
+    public ColumnDefinitions getColumnDefinitions() {
+        throw unsupported("getColumnDefinitions");
+    }
+
+    @Override
+    public Token getToken(final int index) {
+        throw unsupported("getToken");
+    }
+
+    @Override
+    public Token getToken(final String name) {
+        throw unsupported("getToken");
+    }
+
+    @Override
+    public Token getPartitionKeyToken() {
+        throw unsupported("getPartitionKeyToken");
+    }
+
+    @Override
+    public byte getByte(final int index) {
+        throw unsupported("getByte");
+    }
+
+    @Override
+    public byte getByte(final String name) {
+        throw unsupported("getByte");
+    }
+
+    @Override
+    public short getShort(final int index) {
+        throw unsupported("getShort");
+    }
+
+    @Override
+    public short getShort(final String name) {
+        throw unsupported("getShort");
+    }
+
+    @Override
+    public LocalDate getDate(final int index) {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public LocalDate getDate(final String name) {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public long getTime(final int index) {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public long getTime(final String name) {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public float getFloat(final int index) {
+        throw unsupported("getFloat");
+    }
+
+    @Override
+    public float getFloat(final String name) {
+        throw unsupported("getFloat");
+    }
+
+    @Override
+    public ByteBuffer getBytesUnsafe(final int index) {
+        throw unsupported("getBytesUnsafe");
+    }
+
+    @Override
+    public ByteBuffer getBytesUnsafe(final String name) {
+        throw unsupported("getBytesUnsafe");
+    }
+
+    @Override
+    public ByteBuffer getBytes(final int index) {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public ByteBuffer getBytes(final String name) {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public BigInteger getVarint(final int index) {
+        throw unsupported("getVarint");
+    }
+
+    @Override
+    public BigInteger getVarint(final String name) {
+        throw unsupported("getVarint");
+    }
+
+    @Override
+    public BigDecimal getDecimal(final int index) {
+        throw unsupported("getDecimal");
+    }
+
+    @Override
+    public BigDecimal getDecimal(final String name) {
+        throw unsupported("getDecimal");
+    }
+
+    @Override
+    public InetAddress getInet(final int index) {
+        throw unsupported("getInet");
+    }
+
+    @Override
+    public InetAddress getInet(final String name) {
+        throw unsupported("getInet");
+    }
+
+    @Override
+    public <T> List<T> getList(final int index, final Class<T> elementsClass) {
+        throw unsupported("getList");
+    }
+
+    @Override
+    public <T> List<T> getList(final int index, final TypeToken<T> elementsType) {
+        throw unsupported("getList");
+    }
+
+    @Override
+    public <T> List<T> getList(final String name, final Class<T> elementsClass) {
+        throw unsupported("getList");
+    }
+
+    @Override
+    public <T> List<T> getList(final String name, final TypeToken<T> elementsType) {
+        throw unsupported("getList");
+    }
+
+    @Override
+    public <T> Set<T> getSet(final int index, final Class<T> elementsClass) {
+        throw unsupported("getSet");
+    }
+
+    @Override
+    public <T> Set<T> getSet(final int index, final TypeToken<T> elementsType) {
+        throw unsupported("getSet");
+    }
+
+    @Override
+    public <T> Set<T> getSet(final String name, final Class<T> elementsClass) {
+        throw unsupported("getSet");
+    }
+
+    @Override
+    public <T> Set<T> getSet(final String name, final TypeToken<T> elementsType) {
+        throw unsupported("getSet");
+    }
+
+    @Override
+    public <K, V> Map<K, V> getMap(final int index, final Class<K> keysClass, final Class<V> valuesClass) {
+        throw unsupported("getMap");
+    }
+
+    @Override
+    public <K, V> Map<K, V> getMap(final int index, final TypeToken<K> keysType, final TypeToken<V> valuesType) {
+        throw unsupported("getMap");
+    }
+
+    @Override
+    public <K, V> Map<K, V> getMap(final String name, final Class<K> keysClass, final Class<V> valuesClass) {
+        throw unsupported("getMap");
+    }
+
+    @Override
+    public <K, V> Map<K, V> getMap(final String name, final TypeToken<K> keysType, final TypeToken<V> valuesType) {
+        throw unsupported("getMap");
+    }
+
+    @Override
+    public UDTValue getUDTValue(final int index) {
+        throw unsupported("getUDTValue");
+    }
+
+    @Override
+    public UDTValue getUDTValue(final String name) {
+        throw unsupported("getUDTValue");
+    }
+
+    @Override
+    public TupleValue getTupleValue(final int index) {
+        throw unsupported("getTupleValue");
+    }
+
+    @Override
+    public TupleValue getTupleValue(final String name) {
+        throw unsupported("getTupleValue");
+    }
+
+    @Override
+    public <T> T get(final int index, final Class<T> targetClass) {
+        throw unsupported("get");
+    }
+
+    @Override
+    public <T> T get(final int index, final TypeToken<T> targetType) {
+        throw unsupported("get");
+    }
+
+    @Override
+    public <T> T get(final int index, final TypeCodec<T> codec) {
+        throw unsupported("get");
+    }
+
+    @Override
+    public <T> T get(final String name, final Class<T> targetClass) {
+        throw unsupported("get");
+    }
+
+    @Override
+    public <T> T get(final String name, final TypeToken<T> targetType) {
+        throw unsupported("get");
+    }
+
+    @Override
+    public <T> T get(final String name, final TypeCodec<T> codec) {
+        throw unsupported("get");
+    }
+}
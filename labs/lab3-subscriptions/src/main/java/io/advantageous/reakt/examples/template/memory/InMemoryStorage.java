@@ -0,0 +1,308 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.Select;
+import com.datastax.driver.core.querybuilder.Update;
+import io.advantageous.reakt.Stream;
+import io.advantageous.reakt.examples.template.ConnectionState;
+import io.advantageous.reakt.examples.template.EntityNotFoundException;
+import io.advantageous.reakt.examples.template.RowMapper;
+import io.advantageous.reakt.examples.template.StatementStats;
+import io.advantageous.reakt.examples.template.Storage;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+
+/**
+ * {@link Storage} for one repository on top of an {@link InMemoryDatabase}.
+ */
+final class InMemoryStorage<T> implements Storage<T> {
+
+    private final InMemoryDatabase database;
+    private final String keySpace;
+    private final StatementStats statementStats = new StatementStats(StatementStats.DEFAULT_SLOW_QUERY_MILLIS);
+    private volatile boolean connected = true;
+    private final ConnectionState connectionState = new ConnectionState(() -> invokablePromise(promise -> {
+        connected = true;
+        promise.resolve(true);
+    }));
+
+    InMemoryStorage(final InMemoryDatabase database, final String keySpace) {
+        this.database = database;
+        this.keySpace = keySpace;
+    }
+
+    @Override
+    public void insert(final Promise<Boolean> promise, final Insert insert, final Object... values) {
+        execute(promise, () -> write(insert, values));
+    }
+
+    @Override
+    public void update(final Promise<Boolean> promise, final Update.Where update, final Object... values) {
+        execute(promise, () -> write(update, values));
+    }
+
+    @Override
+    public void delete(final Promise<Boolean> promise, final Delete.Where delete, final Object... values) {
+        execute(promise, () -> {
+            final Bound bound = bind(delete, values);
+            bound.table.delete(bound.values, bound.set);
+            return true;
+        });
+    }
+
+    @Override
+    public void list(final Promise<List<T>> promise, final Select.Where select,
+                     final RowMapper<T> rowMapper, final Object... values) {
+        execute(promise, () -> {
+            final List<T> list = new ArrayList<>();
+            read(select, values).forEach(row -> list.add(row.map(rowMapper)));
+            return list;
+        });
+    }
+
+    @Override
+    public void find(final Promise<T> promise, final Select.Where select,
+                     final RowMapper<T> rowMapper, final Object... values) {
+        final List<Result> rows;
+        try {
+            rows = read(select, values);
+        } catch (Exception ex) {
+            database.complete(() -> promise.reject("Problem loading entity", ex));
+            return;
+        }
+
+        if (rows.isEmpty()) {
+            database.complete(() -> promise.reject(new EntityNotFoundException("Entity not found")));
+        } else {
+            execute(promise, () -> rows.get(0).map(rowMapper));
+        }
+    }
+
+    @Override
+    public void exists(final Promise<Boolean> promise, final Select.Where select, final Object... values) {
+        execute(promise, () -> !read(select, values).isEmpty());
+    }
+
+    /**
+     * Streams a snapshot of the rows, the in-memory store has no pages so every row is
+     * sent at once unless the handler cancels.
+     */
+    @Override
+    public void stream(final Stream<T> stream, final Select.Where select,
+                       final RowMapper<T> rowMapper, final Object... values) {
+        final List<Result> rows;
+        try {
+            rows = read(select, values);
+        } catch (Exception ex) {
+            database.complete(() -> stream.fail(ex));
+            return;
+        }
+
+        database.complete(() -> {
+            final AtomicBoolean cancelled = new AtomicBoolean();
+            for (final Result row : rows) {
+                if (cancelled.get()) {
+                    return;
+                }
+                stream.reply(row.map(rowMapper), false, () -> cancelled.set(true), more -> { });
+            }
+            stream.complete();
+        });
+    }
+
+    /**
+     * There is only one range in memory, the token relations of the select are ignored.
+     */
+    @Override
+    public void scan(final Promise<Long> promise, final Select.Where rangeSelect,
+                     final RowMapper<T> rowMapper, final Consumer<T> consumer) {
+        execute(promise, () -> {
+            long count = 0;
+            for (final Result row : read(rangeSelect, null)) {
+                consumer.accept(row.map(rowMapper));
+                count++;
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Always empty, there are no driver statements in memory.
+     */
+    @Override
+    public StatementStats statementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Connecting in memory never fails.
+     */
+    @Override
+    public ConnectionState connectionState() {
+        return connectionState;
+    }
+
+    @Override
+    public Promise<Boolean> connect() {
+        return invokablePromise(connectionState::connect);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void ifConnected(final String operation, final Promise<?> promise, final Runnable runnable) {
+        if (!connected) {
+            promise.reject("In-memory storage closed, unable to run " + operation);
+            return;
+        }
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            promise.reject("Error running " + operation, ex);
+        }
+    }
+
+    @Override
+    public void ifConnected(final String operation, final Stream<?> stream, final Runnable runnable) {
+        if (!connected) {
+            stream.fail("In-memory storage closed, unable to run " + operation);
+            return;
+        }
+        try {
+            runnable.run();
+        } catch (Exception ex) {
+            stream.fail(new IllegalStateException("Error running " + operation, ex));
+        }
+    }
+
+    @Override
+    public void close() {
+        connected = false;
+    }
+
+    private <R> void execute(final Promise<R> promise, final Supplier<R> operation) {
+        final R result;
+        try {
+            result = operation.get();
+        } catch (Exception ex) {
+            database.complete(() -> promise.reject(ex));
+            return;
+        }
+        database.complete(() -> promise.resolve(result));
+    }
+
+    private boolean write(final RegularStatement statement, final Object... values) {
+        final Bound bound = bind(statement, values);
+        bound.table.upsert(bound.values, bound.set);
+        return true;
+    }
+
+    private List<Result> read(final Select.Where select, final Object[] values) {
+        final Bound bound = bind(select, values);
+        final CqlStatement statement = bound.statement;
+        final InMemoryTable table = bound.table;
+        final List<String> columns = statement.columns.isEmpty() ? table.columns : statement.columns;
+
+        final int[] projection = new int[columns.size()];
+        for (int index = 0; index < projection.length; index++) {
+            projection[index] = table.columnIndex(columns.get(index));
+        }
+
+        final List<Result> results = new ArrayList<>();
+        for (final Object[] row : table.select(bound.values, bound.set, statement.limit)) {
+            results.add(new Result(columns, projection, row));
+        }
+        return results;
+    }
+
+    /**
+     * Puts the bind values in column order, marking which columns were given.
+     */
+    private Bound bind(final RegularStatement regularStatement, final Object[] values) {
+        final CqlStatement statement = database.statement(regularStatement);
+        final InMemoryTable table = database.table(keySpace, statement.table);
+        final Object[] row = new Object[table.columns.size()];
+        final boolean[] set = new boolean[row.length];
+        int next = 0;
+
+        for (final String column : statement.columns) {
+            if (statement.kind == CqlStatement.Kind.SELECT) {
+                break;
+            }
+            final int index = table.columnIndex(column);
+            row[index] = values[next++];
+            set[index] = true;
+        }
+
+        for (final CqlStatement.Relation relation : statement.where) {
+            if (relation.token) {
+                next++;
+                continue;
+            }
+            if (!relation.operator.equals("=")) {
+                throw new UnsupportedOperationException("In-memory storage only supports = on "
+                        + relation.column + ", not " + relation.operator);
+            }
+            final int index = table.columnIndex(relation.column);
+            row[index] = values[next++];
+            set[index] = true;
+        }
+
+        final int given = values == null ? 0 : values.length;
+        if (values != null && next != given) {
+            throw new IllegalArgumentException("Statement has " + next + " bind markers but "
+                    + given + " values were given: " + regularStatement);
+        }
+        return new Bound(statement, table, row, set);
+    }
+
+    private static final class Bound {
+        private final CqlStatement statement;
+        private final InMemoryTable table;
+        private final Object[] values;
+        private final boolean[] set;
+
+        private Bound(final CqlStatement statement, final InMemoryTable table,
+                      final Object[] values, final boolean[] set) {
+            this.statement = statement;
+            this.table = table;
+            this.values = values;
+            this.set = set;
+        }
+    }
+
+    /**
+     * A selected row, only turned into a driver row when it is mapped.
+     */
+    private static final class Result {
+        private final List<String> columns;
+        private final int[] projection;
+        private final Object[] row;
+
+        private Result(final List<String> columns, final int[] projection, final Object[] row) {
+            this.columns = columns;
+            this.projection = projection;
+            this.row = row;
+        }
+
+        private <T> T map(final RowMapper<T> rowMapper) {
+            final Object[] values = new Object[projection.length];
+            for (int index = 0; index < projection.length; index++) {
+                values[index] = row[projection[index]];
+            }
+            return rowMapper.map(InMemoryRow.row(columns, values));
+        }
+    }
+}
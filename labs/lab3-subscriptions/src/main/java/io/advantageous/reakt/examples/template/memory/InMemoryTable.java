@@ -0,0 +1,308 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One table kept in a sorted map of partitions, each a sorted map of rows by clustering key.
+ *
+ * Rows are arrays of column values in table definition order and are never changed once
+ * stored, a write stores a merged copy, so readers always see whole rows without locking.
+ * Writes lock the partition they change, so a merge never loses a concurrent write to the
+ * same row and a delete never unmaps a partition another write just added a row to.
+ */
+final class InMemoryTable {
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(?:\\S+\\.)?(\\S+?)\\s*\\((.*?)\\)\\s*(?:WITH\\s+(.*))?",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PRIMARY_KEY = Pattern.compile(
+            "primary\\s+key\\s*\\((.*)\\)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CLUSTERING_ORDER = Pattern.compile(
+            "CLUSTERING\\s+ORDER\\s+BY\\s*\\((.*?)\\)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    final String name;
+    final List<String> columns;
+    private final Map<String, Integer> columnIndex;
+    private final int[] partitionKey;
+    private final int[] clusteringKey;
+    private final Comparator<Key> clusteringOrder;
+    private final ConcurrentSkipListMap<Key, ConcurrentSkipListMap<Key, Object[]>> partitions =
+            new ConcurrentSkipListMap<>();
+
+    private InMemoryTable(final String name, final List<String> columns,
+                          final List<String> partitionKey, final List<String> clusteringKey,
+                          final boolean[] descending) {
+        this.name = name;
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnIndex = new HashMap<>();
+        for (int index = 0; index < columns.size(); index++) {
+            columnIndex.put(columns.get(index), index);
+        }
+        this.partitionKey = indexes(partitionKey);
+        this.clusteringKey = indexes(clusteringKey);
+        this.clusteringOrder = (left, right) -> left.compareTo(right, descending);
+    }
+
+    /**
+     * Reads every CREATE TABLE of the DDL, the other statements are ignored.
+     */
+    static List<InMemoryTable> fromDefinition(final String tableDefinition) {
+        final List<InMemoryTable> tables = new ArrayList<>();
+        for (final String statement : tableDefinition.split(";")) {
+            final Matcher create = CREATE_TABLE.matcher(statement.trim());
+            if (create.matches()) {
+                tables.add(parse(create.group(1), create.group(2), create.group(3)));
+            }
+        }
+        return tables;
+    }
+
+    private static InMemoryTable parse(final String tableName, final String body, final String options) {
+        final Matcher primaryKey = PRIMARY_KEY.matcher(body);
+        if (!primaryKey.find()) {
+            throw new UnsupportedOperationException("Table " + tableName + " needs a primary key (...) clause");
+        }
+
+        final List<String> columns = new ArrayList<>();
+        for (final String definition : body.substring(0, primaryKey.start()).split(",")) {
+            if (!definition.trim().isEmpty()) {
+                columns.add(CqlStatement.name(definition.trim().split("\\s+")[0]));
+            }
+        }
+
+        final String key = primaryKey.group(1).trim();
+        final List<String> partitionKey;
+        final List<String> clusteringKey;
+        if (key.startsWith("(")) {
+            final int end = key.indexOf(')');
+            partitionKey = names(key.substring(1, end));
+            final String rest = key.substring(end + 1).trim();
+            clusteringKey = rest.isEmpty() ? Collections.emptyList() : names(rest.substring(1));
+        } else {
+            final List<String> names = names(key);
+            partitionKey = names.subList(0, 1);
+            clusteringKey = names.subList(1, names.size());
+        }
+
+        final boolean[] descending = new boolean[clusteringKey.size()];
+        final Matcher order = options == null ? null : CLUSTERING_ORDER.matcher(options);
+        if (order != null && order.find()) {
+            for (final String ordering : order.group(1).split(",")) {
+                final String[] parts = ordering.trim().split("\\s+");
+                final int index = clusteringKey.indexOf(CqlStatement.name(parts[0]));
+                if (index >= 0 && parts.length > 1) {
+                    descending[index] = parts[1].equalsIgnoreCase("desc");
+                }
+            }
+        }
+
+        return new InMemoryTable(CqlStatement.name(tableName), columns, partitionKey, clusteringKey, descending);
+    }
+
+    private static List<String> names(final String list) {
+        final List<String> names = new ArrayList<>();
+        for (final String name : list.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(CqlStatement.name(name));
+            }
+        }
+        return names;
+    }
+
+    int columnIndex(final String column) {
+        final Integer index = columnIndex.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Undefined column " + column + " in table " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Inserts or merges the values into the row, like a Cassandra INSERT or UPDATE.
+     *
+     * @param values values by column index.
+     * @param set    which of the values are written, the other columns keep their value.
+     */
+    void upsert(final Object[] values, final boolean[] set) {
+        final Key partition = key(values, partitionKey, "partition");
+        final Key clustering = key(values, clusteringKey, "clustering");
+
+        while (true) {
+            final ConcurrentSkipListMap<Key, Object[]> rows =
+                    partitions.computeIfAbsent(partition, key -> new ConcurrentSkipListMap<>(clusteringOrder));
+            synchronized (rows) {
+                /* A delete emptied and unmapped the partition after we looked it up. */
+                if (partitions.get(partition) != rows) {
+                    continue;
+                }
+                rows.put(clustering, merge(rows.get(clustering), values, set));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the partition, or only the rows matching the clustering columns given.
+     */
+    void delete(final Object[] values, final boolean[] set) {
+        final Key partition = key(values, partitionKey, "partition");
+
+        if (!isSet(set, clusteringKey)) {
+            partitions.remove(partition);
+            return;
+        }
+
+        final ConcurrentSkipListMap<Key, Object[]> rows = partitions.get(partition);
+        if (rows == null) {
+            return;
+        }
+        synchronized (rows) {
+            rows.values().removeIf(row -> matches(row, values, set));
+            if (rows.isEmpty()) {
+                partitions.remove(partition, rows);
+            }
+        }
+    }
+
+    /**
+     * Rows in partition and clustering order that equal every set value.
+     */
+    List<Object[]> select(final Object[] values, final boolean[] set, final int limit) {
+        final List<Object[]> result = new ArrayList<>();
+
+        if (isSet(set, partitionKey)) {
+            final ConcurrentSkipListMap<Key, Object[]> rows = partitions.get(key(values, partitionKey, "partition"));
+            if (rows != null) {
+                collect(rows, values, set, limit, result);
+            }
+            return result;
+        }
+
+        for (final ConcurrentNavigableMap<Key, Object[]> rows : partitions.values()) {
+            if (!collect(rows, values, set, limit, result)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static boolean collect(final Map<Key, Object[]> rows, final Object[] values, final boolean[] set,
+                                   final int limit, final List<Object[]> result) {
+        for (final Object[] row : rows.values()) {
+            if (result.size() >= limit) {
+                return false;
+            }
+            if (matches(row, values, set)) {
+                result.add(row);
+            }
+        }
+        return result.size() < limit;
+    }
+
+    private static boolean matches(final Object[] row, final Object[] values, final boolean[] set) {
+        for (int index = 0; index < row.length; index++) {
+            if (set[index] && !equal(row[index], values[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object[] merge(final Object[] row, final Object[] values, final boolean[] set) {
+        final Object[] merged = row == null ? new Object[values.length] : row.clone();
+        for (int index = 0; index < values.length; index++) {
+            if (set[index]) {
+                merged[index] = values[index];
+            }
+        }
+        return merged;
+    }
+
+    private static boolean isSet(final boolean[] set, final int[] indexes) {
+        for (final int index : indexes) {
+            if (!set[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Key key(final Object[] values, final int[] indexes, final String kind) {
+        final Object[] key = new Object[indexes.length];
+        for (int index = 0; index < indexes.length; index++) {
+            key[index] = values[indexes[index]];
+            if (key[index] == null) {
+                throw new IllegalArgumentException("Missing " + kind + " key column "
+                        + columns.get(indexes[index]) + " for table " + name);
+            }
+        }
+        return new Key(key);
+    }
+
+    private int[] indexes(final List<String> names) {
+        final int[] indexes = new int[names.size()];
+        for (int index = 0; index < indexes.length; index++) {
+            indexes[index] = columnIndex(names.get(index));
+        }
+        return indexes;
+    }
+
+    private static boolean equal(final Object left, final Object right) {
+        return left == null ? right == null : left.equals(right);
+    }
+
+    /**
+     * Primary key values, compared column by column. Values of a column are all the same
+     * Java type since they are bound from the same statement shapes.
+     */
+    static final class Key implements Comparable<Key> {
+        private final Object[] values;
+        private final int hash;
+
+        Key(final Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int compareTo(final Key other) {
+            return compareTo(other, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        int compareTo(final Key other, final boolean[] descending) {
+            for (int index = 0; index < values.length; index++) {
+                final int compared = ((Comparable<Object>) values[index]).compareTo(other.values[index]);
+                if (compared != 0) {
+                    return descending != null && descending[index] ? -compared : compared;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && Arrays.equals(values, ((Key) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryTable{" + name + ' ' + columns + '}';
+    }
+}
@@ -0,0 +1,127 @@
+package io.advantageous.reakt.examples.util;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with fixed memory, in the style of HdrHistogram.
+ *
+ * Values below 128 get a bucket each, above that every power of two is split in 64
+ * buckets, so a recorded value is off by less than 1.6% up to the largest value, about
+ * 19 hours in microseconds. Larger values are recorded as the largest one. Recording is
+ * an increment of one counter and a max update, from any thread.
+ *
+ * The counts only grow, {@link #report(ServiceManagementBundle, String)} sends the
+ * percentiles of what was recorded since the last report.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_BITS = 36;
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_BITS - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /* Only used by the reporting thread. */
+    private final long[] reported = new long[BUCKETS];
+    private final long[] interval = new long[BUCKETS];
+
+    public void record(final long value) {
+        final long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(index(clamped));
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    public long count() {
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            count += counts.get(index);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile between 0 and 1.
+     * @return the value at the percentile of everything recorded so far, 0 if nothing was.
+     */
+    public long valueAt(final double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            snapshot[index] = counts.get(index);
+            count += snapshot[index];
+        }
+        return valueAt(snapshot, count, percentile);
+    }
+
+    /**
+     * Sends the number of values recorded since the last report as {@code prefix.count},
+     * and their p50, p99, p999 and max as the levels {@code prefix.p50}, {@code prefix.p99},
+     * {@code prefix.p999} and {@code prefix.max}. Sends nothing if there were none. Call it
+     * from one thread, the reactor of the service.
+     */
+    public void report(final ServiceManagementBundle mgmt, final String prefix) {
+        long count = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            final long now = counts.get(index);
+            interval[index] = now - reported[index];
+            reported[index] = now;
+            count += interval[index];
+        }
+        final long intervalMax = max.getAndSet(0);
+
+        if (count == 0) {
+            return;
+        }
+        mgmt.recordCount(prefix + ".count", count);
+        mgmt.recordLevel(prefix + ".p50", level(Math.min(valueAt(interval, count, 0.5), intervalMax)));
+        mgmt.recordLevel(prefix + ".p99", level(Math.min(valueAt(interval, count, 0.99), intervalMax)));
+        mgmt.recordLevel(prefix + ".p999", level(Math.min(valueAt(interval, count, 0.999), intervalMax)));
+        mgmt.recordLevel(prefix + ".max", level(intervalMax));
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * The largest value that is recorded in the bucket.
+     */
+    static long highest(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / HALF + 1;
+        final long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long valueAt(final long[] counts, final long count, final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return highest(index);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    private static int level(final long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+}
@@ -4,21 +4,51 @@ var config = {
     statsd: "udp://" + getDockerHost() + ":8125",
     cassandra: {
       uris: ["cassandra://" + getDockerHost() + ':' + 39042],
-      replicationFactor: 1
+      replicationFactor: 1,
+      preparedStatements: true,
+      slowQueryMillis: 200,
+      connection: {
+        localDc: "",
+        tokenAware: true,
+        coreConnectionsPerHost: 1,
+        maxConnectionsPerHost: 2,
+        maxRequestsPerConnection: 1024,
+        compression: "lz4",
+        readTimeoutMillis: 2000,
+        speculativeDelayMillis: 0,
+        speculativeExecutions: 0
+      }
+    },
+    cache: {
+      subscription: { maxSize: 10000, ttlMillis: 60000, missTtlMillis: 5000 },
+      asset: { maxSize: 10000, ttlMillis: 300000, missTtlMillis: 5000 },
+      entitlement: { maxSize: 100000, ttlMillis: 60000, missTtlMillis: 5000 }
+    },
+    entitlementIndex: {
+      expectedEntries: 1000000,
+      falsePositiveRate: 0.01,
+      reloadMinutes: 10
+    },
+    storage: {
+      type: "cassandra",
+      latencyMicros: 0,
+      jitterMicros: 0
     }
   },
   asset: {
     statsd: "udp://" + getDockerHost() + ":8125",
     cassandra: {
       uris: ["cassandra://" + getDockerHost() + ':' + 39042],
-      replicationFactor: 1
+      replicationFactor: 1,
+      preparedStatements: true
     }
   },
   entitlement: {
     statsd: "udp://" + getDockerHost() + ":8125",
     cassandra: {
       uris: ["cassandra://" + getDockerHost() + ':' + 39042],
-      replicationFactor: 1
+      replicationFactor: 1,
+      preparedStatements: true
     }
   },
   message: {
@@ -29,8 +59,35 @@ var config = {
       topic: "my-topic",
       clientId: "ReaktProducer",
       kafkaSerializationClass: "org.apache.kafka.common.serialization.StringSerializer",
+      format: "json",
       partitions: 2,
-      replication: 1
+      replication: 1,
+      producer: {
+        batchSize: 65536,
+        lingerMs: 5,
+        compressionType: "lz4",
+        maxInFlight: 5,
+        bufferMemory: 33554432,
+        maxOutstandingSends: 10000
+      },
+      consumer: {
+        credits: 1000,
+        batch: {
+          maxSize: 500,
+          maxWaitMs: 20
+        },
+        commit: {
+          atLeastOnce: true,
+          maxMessages: 1000,
+          maxWaitMs: 1000
+        }
+      },
+      retry: {
+        maxAttempts: 5,
+        initialBackoffMs: 100,
+        maxBackoffMs: 10000,
+        deadLetterTopic: "my-topic-dlq"
+      }
   }
 }
 }
\ No newline at end of file
@@ -7,7 +7,35 @@ var config = {
         "cassandra://node-1.cassandra.mesos:9042",
         "cassandra://node-2.cassandra.mesos:9042"
       ],
-      replicationFactor: 2
+      replicationFactor: 2,
+      preparedStatements: true,
+      slowQueryMillis: 200,
+      connection: {
+        localDc: "",
+        tokenAware: true,
+        coreConnectionsPerHost: 2,
+        maxConnectionsPerHost: 8,
+        maxRequestsPerConnection: 1024,
+        compression: "lz4",
+        readTimeoutMillis: 2000,
+        speculativeDelayMillis: 50,
+        speculativeExecutions: 1
+      }
+    },
+    cache: {
+      subscription: { maxSize: 10000, ttlMillis: 60000, missTtlMillis: 5000 },
+      asset: { maxSize: 10000, ttlMillis: 300000, missTtlMillis: 5000 },
+      entitlement: { maxSize: 100000, ttlMillis: 60000, missTtlMillis: 5000 }
+    },
+    entitlementIndex: {
+      expectedEntries: 1000000,
+      falsePositiveRate: 0.01,
+      reloadMinutes: 10
+    },
+    storage: {
+      type: "cassandra",
+      latencyMicros: 0,
+      jitterMicros: 0
     }
   },
   asset: {
@@ -18,7 +46,8 @@ var config = {
         "cassandra://node-1.cassandra.mesos:9042",
         "cassandra://node-2.cassandra.mesos:9042"
       ],
-      replicationFactor: 2
+      replicationFactor: 2,
+      preparedStatements: true
     }
   },
   entitlement: {
@@ -29,7 +58,8 @@ var config = {
         "cassandra://node-1.cassandra.mesos:9042",
         "cassandra://node-2.cassandra.mesos:9042"
       ],
-      replicationFactor: 2
+      replicationFactor: 2,
+      preparedStatements: true
     }
   },
   message: {
@@ -40,8 +70,35 @@ var config = {
       topic: "my-topic",
       clientId: "ReaktProducer",
       kafkaSerializationClass: "org.apache.kafka.common.serialization.StringSerializer",
+      format: "json",
       partitions: 2,
-      replication: 1
+      replication: 1,
+      producer: {
+        batchSize: 65536,
+        lingerMs: 5,
+        compressionType: "lz4",
+        maxInFlight: 5,
+        bufferMemory: 33554432,
+        maxOutstandingSends: 10000
+      },
+      consumer: {
+        credits: 1000,
+        batch: {
+          maxSize: 500,
+          maxWaitMs: 20
+        },
+        commit: {
+          atLeastOnce: true,
+          maxMessages: 1000,
+          maxWaitMs: 1000
+        }
+      },
+      retry: {
+        maxAttempts: 5,
+        initialBackoffMs: 100,
+        maxBackoffMs: 10000,
+        deadLetterTopic: "my-topic-dlq"
+      }
     }
   }
 };
@@ -0,0 +1,22 @@
+package io.advantageous.reakt.examples.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the column of a field, or its CQL type when it is not the natural one for the
+ * Java type, such as a {@code long} stored as a timestamp.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Column {
+
+    /**
+     * The column name, the field name if empty.
+     */
+    String value() default "";
+
+    ColumnType type() default ColumnType.AUTO;
+}
@@ -0,0 +1,17 @@
+package io.advantageous.reakt.examples.mapping;
+
+/**
+ * CQL types the generated mappers read and bind.
+ */
+public enum ColumnType {
+    /** Derived from the Java type of the field. */
+    AUTO,
+    TEXT,
+    BIGINT,
+    INT,
+    BOOLEAN,
+    DOUBLE,
+    UUID,
+    /** A {@code java.util.Date}, or a {@code long} of epoch millis. */
+    TIMESTAMP
+}
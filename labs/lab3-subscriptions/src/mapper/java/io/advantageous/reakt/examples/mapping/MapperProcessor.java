@@ -0,0 +1,241 @@
+package io.advantageous.reakt.examples.mapping;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the row mapper of every {@link Table} class. The mappers extend
+ * {@code IndexedRowMapper}, which resolves the column indexes once per result metadata,
+ * and read and bind every column by index without reflection.
+ */
+@SupportedAnnotationTypes("io.advantageous.reakt.examples.mapping.Table")
+public class MapperProcessor extends AbstractProcessor {
+
+    private static final String BASE = "io.advantageous.reakt.examples.template.IndexedRowMapper";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(Table.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@Table only applies to classes");
+                continue;
+            }
+            final TypeElement type = (TypeElement) element;
+            final List<Field> fields = fields(type);
+            if (fields != null) {
+                write(type, fields);
+            }
+        }
+        return true;
+    }
+
+    private List<Field> fields(final TypeElement type) {
+        boolean valid = false;
+        for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                valid = true;
+            }
+        }
+        if (!valid) {
+            error(type, "@Table classes need a no-arg constructor");
+            return null;
+        }
+
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        final List<Field> fields = new ArrayList<>();
+        for (final VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (variable.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+
+            final Field field = new Field(variable);
+            if (field.type == null) {
+                error(variable, "No column type for " + variable.asType() + ", set one with @Column(type = ...)");
+                return null;
+            }
+            if (field.createTime && !(field.javaType.equals("long") && field.type == ColumnType.TIMESTAMP)) {
+                error(variable, "@CreateTime needs a long timestamp column");
+                return null;
+            }
+            field.getter = accessor(methods, field.getterName(), 0);
+            field.setter = accessor(methods, "set" + capitalize(field.name), 1);
+            if (field.getter == null || field.setter == null) {
+                error(variable, "Field " + field.name + " needs a getter and a setter");
+                return null;
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    private void write(final TypeElement type, final List<Field> fields) {
+        final String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        final String entity = type.getSimpleName().toString();
+        final String mapper = entity + "Mapper";
+        final String table = type.getAnnotation(Table.class).value();
+
+        final StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+                .append("import com.datastax.driver.core.Row;\n\n")
+                .append("/**\n * Generated from {@link ").append(entity).append("} by ")
+                .append(MapperProcessor.class.getSimpleName()).append(", do not edit.\n */\n")
+                .append("public final class ").append(mapper).append(" extends ").append(BASE)
+                .append('<').append(entity).append("> {\n\n")
+                .append("    public static final ").append(mapper).append(" INSTANCE = new ").append(mapper).append("();\n\n")
+                .append("    private ").append(mapper).append("() {\n")
+                .append("        super(\"").append(table).append('"');
+        for (final Field field : fields) {
+            source.append(", \"").append(field.column).append('"');
+        }
+        source.append(");\n    }\n\n");
+
+        source.append("    @Override\n    public ").append(entity).append(" map(final Row row) {\n")
+                .append("        final int[] index = indexes(row);\n")
+                .append("        final ").append(entity).append(" entity = new ").append(entity).append("();\n");
+        for (int position = 0; position < fields.size(); position++) {
+            final Field field = fields.get(position);
+            final String index = "index[" + position + "]";
+            source.append("        if (").append(index).append(" >= 0");
+            if (field.primitive()) {
+                source.append(" && !row.isNull(").append(index).append(')');
+            }
+            source.append(") {\n            entity.").append(field.setter).append('(')
+                    .append(field.read(index)).append(");\n        }\n");
+        }
+        source.append("        return entity;\n    }\n\n");
+
+        source.append("    @Override\n    public Object[] values(final ").append(entity).append(" entity) {\n")
+                .append("        return new Object[]{\n");
+        for (int position = 0; position < fields.size(); position++) {
+            source.append("                ").append(fields.get(position).value())
+                    .append(position < fields.size() - 1 ? ",\n" : "\n");
+        }
+        source.append("        };\n    }\n}\n");
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(packageName + '.' + mapper, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Unable to write " + mapper + ": " + e.getMessage());
+        }
+    }
+
+    private static String accessor(final List<ExecutableElement> methods, final String name, final int parameters) {
+        for (final ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameters
+                    && !method.getModifiers().contains(Modifier.PRIVATE)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static String capitalize(final String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Field {
+        private final String name;
+        private final String column;
+        private final String javaType;
+        private final ColumnType type;
+        private final boolean createTime;
+        private String getter;
+        private String setter;
+
+        private Field(final VariableElement variable) {
+            final Column annotation = variable.getAnnotation(Column.class);
+            this.name = variable.getSimpleName().toString();
+            this.column = annotation == null || annotation.value().isEmpty() ? name : annotation.value();
+            this.javaType = variable.asType().toString();
+            this.createTime = variable.getAnnotation(CreateTime.class) != null;
+            final ColumnType declared = annotation == null ? ColumnType.AUTO : annotation.type();
+            this.type = declared != ColumnType.AUTO ? declared : natural(javaType, createTime);
+        }
+
+        private static ColumnType natural(final String javaType, final boolean createTime) {
+            switch (javaType) {
+                case "java.lang.String":
+                    return ColumnType.TEXT;
+                case "long":
+                    return createTime ? ColumnType.TIMESTAMP : ColumnType.BIGINT;
+                case "int":
+                    return ColumnType.INT;
+                case "boolean":
+                    return ColumnType.BOOLEAN;
+                case "double":
+                    return ColumnType.DOUBLE;
+                case "java.util.UUID":
+                    return ColumnType.UUID;
+                case "java.util.Date":
+                    return ColumnType.TIMESTAMP;
+                default:
+                    return null;
+            }
+        }
+
+        private boolean primitive() {
+            return !javaType.contains(".");
+        }
+
+        private String getterName() {
+            return (javaType.equals("boolean") ? "is" : "get") + capitalize(name);
+        }
+
+        private boolean epochMillis() {
+            return type == ColumnType.TIMESTAMP && javaType.equals("long");
+        }
+
+        private String read(final String index) {
+            switch (type) {
+                case TEXT:
+                    return "row.getString(" + index + ")";
+                case BIGINT:
+                    return "row.getLong(" + index + ")";
+                case INT:
+                    return "row.getInt(" + index + ")";
+                case BOOLEAN:
+                    return "row.getBool(" + index + ")";
+                case DOUBLE:
+                    return "row.getDouble(" + index + ")";
+                case UUID:
+                    return "row.getUUID(" + index + ")";
+                default:
+                    return epochMillis() ? "row.getTimestamp(" + index + ").getTime()" : "row.getTimestamp(" + index + ")";
+            }
+        }
+
+        private String value() {
+            if (createTime) {
+                return "new java.util.Date()";
+            }
+            final String value = "entity." + getter + "()";
+            return epochMillis() ? "new java.util.Date(" + value + ")" : value;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.advantageous.reakt.examples.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a row mapper for the class at compile time, named after the class with a
+ * {@code Mapper} suffix and in the same package. Every non-static field is a column, the
+ * class needs a no-arg constructor and a getter and setter per field.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Table {
+
+    /**
+     * The table name.
+     */
+    String value();
+}
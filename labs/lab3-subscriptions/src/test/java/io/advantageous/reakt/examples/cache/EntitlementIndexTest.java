@@ -0,0 +1,142 @@
+package io.advantageous.reakt.examples.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EntitlementIndexTest {
+
+    private EntitlementIndex index;
+
+    @Before
+    public void before() {
+        index = new EntitlementIndex(1000, 0.01);
+    }
+
+    @Test
+    public void testEverythingMightExistUntilLoaded() {
+        assertFalse(index.isLoaded());
+        assertTrue(index.mightContain("asset", "subscription"));
+
+        index.beginLoad();
+        index.loaded("asset", "subscription");
+        assertTrue(index.mightContain("other", "subscription"));
+
+        index.endLoad(1);
+        assertTrue(index.isLoaded());
+        assertTrue(index.mightContain("asset", "subscription"));
+        assertFalse(index.mightContain("other", "subscription"));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        index.beginLoad();
+        index.endLoad(1);
+
+        index.add("asset", "subscription");
+        assertTrue(index.mightContain("asset", "subscription"));
+
+        index.remove("asset", "subscription");
+        assertFalse(index.mightContain("asset", "subscription"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testWritesDuringLoadAreKept() {
+        index.beginLoad();
+        index.endLoad(1);
+        index.add("a", "1");
+
+        index.beginLoad();
+        index.loaded("a", "1");
+        index.add("b", "2");
+        index.remove("a", "1");
+        index.endLoad(2);
+
+        assertFalse(index.mightContain("a", "1"));
+        assertTrue(index.mightContain("b", "2"));
+        assertEquals(2, index.loadedAt());
+    }
+
+    @Test
+    public void testPageReadBeforeARemoveDoesNotBringThePairBack() {
+        index.beginLoad();
+        index.endLoad(1);
+        index.add("a", "1");
+
+        index.beginLoad();
+        index.remove("a", "1");
+        index.loaded("a", "1");
+        index.endLoad(2);
+
+        assertFalse(index.mightContain("a", "1"));
+    }
+
+    @Test
+    public void testAddAfterARemoveWhileLoadingIsLoadedAgain() {
+        index.beginLoad();
+        index.remove("a", "1");
+        index.add("a", "1");
+        index.loaded("a", "1");
+        index.endLoad(1);
+
+        assertTrue(index.mightContain("a", "1"));
+
+        index.beginLoad();
+        index.loaded("a", "1");
+        index.endLoad(2);
+
+        assertTrue("a remove only holds for the load it happened in", index.mightContain("a", "1"));
+    }
+
+    @Test
+    public void testAbortedLoadKeepsPreviousVersion() {
+        index.beginLoad();
+        index.loaded("a", "1");
+        index.endLoad(1);
+
+        assertTrue(index.beginLoad());
+        assertFalse(index.beginLoad());
+        index.abortLoad();
+
+        assertFalse(index.isLoading());
+        assertTrue(index.mightContain("a", "1"));
+    }
+
+    @Test
+    public void testIdSplitIsPartOfTheHash() {
+        assertNotEquals(EntitlementIndex.hash("ab", "c"), EntitlementIndex.hash("a", "bc"));
+    }
+
+    @Test
+    public void testLongHashSetRemoveKeepsProbeRuns() {
+        final LongHashSet set = new LongHashSet(4);
+        for (long value = 0; value < 1000; value++) {
+            assertTrue(set.add(value * 64));
+        }
+        for (long value = 0; value < 1000; value += 2) {
+            assertTrue(set.remove(value * 64));
+        }
+        for (long value = 0; value < 1000; value++) {
+            assertEquals(value % 2 == 1, set.contains(value * 64));
+        }
+        assertEquals(500, set.size());
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        final BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (long value = 0; value < 1000; value++) {
+            filter.add(EntitlementIndex.hash("asset" + value, "subscription"));
+        }
+        int falsePositives = 0;
+        for (long value = 0; value < 1000; value++) {
+            assertTrue(filter.mightContain(EntitlementIndex.hash("asset" + value, "subscription")));
+            if (filter.mightContain(EntitlementIndex.hash("other" + value, "subscription"))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50);
+    }
+}
@@ -0,0 +1,105 @@
+package io.advantageous.reakt.examples.cache;
+
+import io.advantageous.reakt.Expected;
+import io.advantageous.reakt.promise.Promise;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.advantageous.reakt.promise.Promises.promise;
+import static org.junit.Assert.*;
+
+public class LruEntityCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private LruEntityCache<String, String> cache;
+
+    @Before
+    public void before() {
+        cache = new LruEntityCache<>(2, Duration.ofMillis(100), Duration.ofMillis(10), now::get);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        assertNull(cache.get("a"));
+        cache.put("a", "asset a");
+
+        final Expected<String> cached = cache.get("a");
+        assertTrue(cached.isPresent());
+        assertEquals("asset a", cached.get());
+
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    public void testMissingIsCached() {
+        cache.putMissing("a");
+
+        final Expected<String> cached = cache.get("a");
+        assertNotNull(cached);
+        assertFalse(cached.isPresent());
+
+        now.addAndGet(10);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testExpires() {
+        cache.put("a", "asset a");
+        now.addAndGet(99);
+        assertNotNull(cache.get("a"));
+        now.addAndGet(1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        cache.put("a", "asset a");
+        cache.put("b", "asset b");
+        cache.get("a");
+        cache.put("c", "asset c");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.put("a", "asset a");
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testLoadThatRacedAnInvalidationIsNotCached() {
+        final long generation = cache.generation("a");
+        cache.invalidate("a");
+
+        cache.put("a", "stale asset a", generation);
+        cache.putMissing("a", generation);
+        assertNull(cache.get("a"));
+
+        cache.put("a", "asset a", cache.generation("a"));
+        assertEquals("asset a", cache.get("a").get());
+    }
+
+    @Test
+    public void testFindDoesNotCacheAReadOverlappingAWrite() {
+        final List<Promise<String>> loads = new ArrayList<>();
+        cache.find("a", promise(String.class), loads::add);
+
+        final Promise<Boolean> write = cache.invalidating("a", promise(Boolean.class));
+        write.resolve(true);
+        loads.get(0).resolve("asset a before the write");
+
+        assertNull(cache.get("a"));
+    }
+}
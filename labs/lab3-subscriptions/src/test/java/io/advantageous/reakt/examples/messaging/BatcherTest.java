@@ -0,0 +1,63 @@
+package io.advantageous.reakt.examples.messaging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+public class BatcherTest {
+
+    private ScheduledExecutorService timer;
+    private List<List<Integer>> batches;
+
+    @Before
+    public void before() {
+        timer = Executors.newSingleThreadScheduledExecutor();
+        batches = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void after() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void testFlushesFullBatches() {
+        final Batcher<Integer> batcher = new Batcher<>(2, 60_000, timer, batches::add);
+
+        for (int value = 0; value < 5; value++) {
+            assertTrue(batcher.add(value));
+        }
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3)), batches);
+        assertTrue(batcher.flush());
+        assertEquals(Collections.singletonList(4), batches.get(2));
+    }
+
+    @Test
+    public void testFlushesAfterMaxWait() throws Exception {
+        final Batcher<Integer> batcher = new Batcher<>(100, 10, timer, batches::add);
+
+        batcher.add(1);
+        batcher.add(2);
+        Thread.sleep(200);
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), batches);
+    }
+
+    @Test
+    public void testStopsWhenSinkDeclines() {
+        final Batcher<Integer> batcher = new Batcher<>(1, 60_000, timer, batch -> false);
+
+        assertFalse(batcher.add(1));
+        assertFalse(batcher.add(2));
+    }
+}
@@ -0,0 +1,66 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryMessageCodecTest {
+
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+
+    @Test
+    public void testRoundTrip() {
+        final Message message = new Message("h\u00e9llo w\u00f6rld");
+        final byte[] bytes = codec.encode(message);
+
+        assertEquals(BinaryMessageCodec.MAGIC, bytes[0]);
+        assertEquals(message, codec.decode(bytes));
+    }
+
+    @Test
+    public void testIdThatIsNotAUuid() {
+        final Message message = new Message("hi");
+        message.setId("asset-42");
+        message.setCreateTime(-1);
+
+        assertEquals(message, codec.decode(codec.encode(message)));
+    }
+
+    @Test
+    public void testNullMessage() {
+        final Message message = new Message();
+
+        final Message decoded = codec.decode(codec.encode(message));
+
+        assertNull(decoded.getMessage());
+        assertEquals(message.getId(), decoded.getId());
+    }
+
+    @Test
+    public void testSmallerThanJson() {
+        final String text = "asset-0000042 was added to the premium subscription";
+        final Message message = new Message(text);
+
+        final int binaryOverhead = codec.encode(message).length - text.length();
+        final int jsonOverhead = new JsonMessageCodec().encode(message).length - text.length();
+        assertTrue(binaryOverhead + " vs " + jsonOverhead, binaryOverhead * 3 < jsonOverhead);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        final byte[] bytes = codec.encode(new Message("hi"));
+        codec.decode(Arrays.copyOf(bytes, 10));
+    }
+
+    @Test
+    public void testDetectsFormat() {
+        final Message message = new Message("hi");
+        final DetectingMessageCodec detecting = new DetectingMessageCodec("binary");
+
+        assertEquals(message, detecting.decode(new JsonMessageCodec().encode(message)));
+        assertEquals(message, detecting.decode(detecting.encode(message)));
+    }
+}
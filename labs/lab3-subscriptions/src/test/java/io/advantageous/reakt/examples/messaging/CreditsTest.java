@@ -0,0 +1,80 @@
+package io.advantageous.reakt.examples.messaging;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CreditsTest {
+
+    @Test
+    public void testPausesUntilGranted() throws Exception {
+        final ConsumerStats stats = new ConsumerStats();
+        final Credits credits = new Credits(2, stats);
+
+        assertTrue(credits.take());
+        assertTrue(credits.take());
+        assertEquals(0, stats.credits());
+
+        final CountDownLatch taken = new CountDownLatch(1);
+        final Thread worker = new Thread(() -> {
+            try {
+                if (credits.take()) {
+                    taken.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        assertFalse(taken.await(50, TimeUnit.MILLISECONDS));
+        credits.grant(1);
+        assertTrue(taken.await(1, TimeUnit.SECONDS));
+        assertEquals(1, stats.pauses());
+    }
+
+    @Test
+    public void testCloseReleasesPausedWorkers() throws Exception {
+        final Credits credits = new Credits(0, new ConsumerStats());
+        final boolean[] result = {true};
+
+        final Thread worker = new Thread(() -> {
+            try {
+                result[0] = credits.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        credits.close();
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+        assertFalse(result[0]);
+    }
+
+    @Test
+    public void testLargeGrantsAreCapped() throws Exception {
+        final ConsumerStats stats = new ConsumerStats();
+        final Credits credits = new Credits(10, stats);
+
+        credits.grant(Long.MAX_VALUE);
+        credits.grant(Integer.MAX_VALUE);
+
+        assertEquals(Integer.MAX_VALUE, stats.credits());
+        assertTrue(credits.take());
+    }
+
+    @Test
+    public void testGrantAfterCloseIsIgnored() throws Exception {
+        final Credits credits = new Credits(Integer.MAX_VALUE / 2 + 10, new ConsumerStats());
+
+        credits.close();
+        credits.grant(Integer.MAX_VALUE);
+
+        assertFalse(credits.take());
+    }
+}
@@ -0,0 +1,37 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.Message;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonMessageCodecTest {
+
+    private final JsonMessageCodec codec = new JsonMessageCodec();
+
+    @Test
+    public void testRoundTrip() {
+        final Message message = new Message("h\u00e9llo w\u00f6rld");
+        assertEquals(message, codec.decode(codec.encode(message)));
+    }
+
+    @Test
+    public void testDecodesProducerJson() {
+        final byte[] payload = "{\"id\":\"m1\",\"message\":\"hi\",\"createTime\":42}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        final Message message = codec.decode(payload);
+
+        assertEquals("m1", message.getId());
+        assertEquals("hi", message.getMessage());
+        assertEquals(42L, message.getCreateTime());
+    }
+
+    @Test
+    public void testStringCodec() {
+        final MessageCodec<String> codec = MessageCodec.string();
+        assertEquals("h\u00e9llo", codec.decode(codec.encode("h\u00e9llo")));
+    }
+}
@@ -0,0 +1,138 @@
+package io.advantageous.reakt.examples.messaging;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OffsetCommitterTest {
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final ConsumerStats stats = new ConsumerStats();
+
+    @Test
+    public void testCommitsAfterMaxMessages() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 2, 60_000,
+                Runnable::run, stats);
+
+        assertTrue(committer.admit(0));
+        committer.done(1);
+        assertEquals(0, commits.get());
+
+        assertTrue(committer.admit(0));
+        committer.done(1);
+        assertEquals(1, commits.get());
+        assertEquals(1, stats.commits());
+    }
+
+    @Test
+    public void testWaitsForOutstandingBeforeCommit() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 1, 60_000,
+                Runnable::run, stats);
+
+        assertTrue(committer.admit(0));
+        assertTrue(committer.admit(0));
+        committer.done(1);
+        assertEquals("one message still in flight", 0, commits.get());
+
+        final CountDownLatch admitted = new CountDownLatch(1);
+        final Thread worker = new Thread(() -> {
+            try {
+                if (committer.admit(0)) {
+                    admitted.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        assertFalse("no new messages while a commit is due", admitted.await(50, TimeUnit.MILLISECONDS));
+
+        committer.done(1);
+        assertEquals(1, commits.get());
+        assertTrue(admitted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCommitsOnTick() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 1000, 0,
+                Runnable::run, stats);
+
+        committer.tick();
+        assertEquals("nothing processed yet", 0, commits.get());
+
+        committer.admit(0);
+        committer.done(1);
+        committer.tick();
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    public void testWindowLimitsOutstanding() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 1000, 60_000,
+                Runnable::run, stats);
+
+        assertTrue(committer.admit(1));
+        final Thread worker = new Thread(() -> {
+            try {
+                committer.admit(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        worker.join(50);
+        assertTrue(worker.isAlive());
+
+        committer.done(1);
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+        assertEquals(1, committer.outstanding());
+    }
+
+    @Test
+    public void testFailureStopsTakingAndCommitting() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 2, 0,
+                Runnable::run, stats);
+
+        assertTrue(committer.admit(0));
+        assertTrue(committer.admit(0));
+        committer.done(1);
+        committer.failed(1, new IllegalStateException("handler failed"));
+
+        assertEquals("nothing committed past the failed message", 0, commits.get());
+        committer.tick();
+        assertEquals(0, commits.get());
+        assertFalse(committer.admit(0));
+        assertEquals(0, committer.outstanding());
+        assertEquals("handler failed", committer.failure().getMessage());
+        assertTrue(stats.isStopped());
+    }
+
+    @Test
+    public void testFailureReleasesWaitingWorkers() throws Exception {
+        final OffsetCommitter committer = new OffsetCommitter(commits::incrementAndGet, 1000, 60_000,
+                Runnable::run, stats);
+
+        assertTrue(committer.admit(1));
+        final AtomicInteger admitted = new AtomicInteger(-1);
+        final Thread worker = new Thread(() -> {
+            try {
+                admitted.set(committer.admit(1) ? 1 : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        worker.join(50);
+        assertTrue(worker.isAlive());
+
+        committer.failed(1, new IllegalStateException("handler failed"));
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+        assertEquals(0, admitted.get());
+    }
+}
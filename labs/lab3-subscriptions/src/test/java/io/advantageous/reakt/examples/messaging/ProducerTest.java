@@ -0,0 +1,110 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.examples.model.PublishResult;
+import io.advantageous.reakt.promise.Promise;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProducerTest {
+
+    private final List<Callback> sends = new ArrayList<>();
+    private org.apache.kafka.clients.producer.Producer<String, byte[]> kafka;
+    private Producer producer;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        kafka = mock(org.apache.kafka.clients.producer.Producer.class);
+        when(kafka.send(any(ProducerRecord.class), any(Callback.class))).thenAnswer(invocation -> {
+            sends.add((Callback) invocation.getArguments()[1]);
+            return null;
+        });
+
+        producer = new Producer(kafka, "messages", 2);
+    }
+
+    @Test
+    public void testResultsStayInOrder() {
+        final Promise<List<PublishResult>> result = producer.sendAll(asList("a", "b"), payloads("a", "b")).invoke();
+
+        assertEquals(2, sends.size());
+        sends.get(1).onCompletion(metadata(1, 20), null);
+        assertFalse("one send still in flight", result.complete());
+
+        sends.get(0).onCompletion(metadata(0, 10), null);
+        assertTrue(result.success());
+
+        final List<PublishResult> results = result.get();
+        assertEquals("a", results.get(0).getKey());
+        assertEquals(10, results.get(0).getOffset());
+        assertEquals("b", results.get(1).getKey());
+        assertEquals(20, results.get(1).getOffset());
+        assertEquals(2, producer.stats().sends());
+    }
+
+    @Test
+    public void testEmptyListResolvesWithoutSending() {
+        final Promise<List<PublishResult>> result = producer.sendAll(emptyList(), emptyList()).invoke();
+
+        assertTrue(result.success());
+        assertTrue(result.get().isEmpty());
+        assertTrue(sends.isEmpty());
+    }
+
+    @Test
+    public void testFailedSendDoesNotFailTheOthers() {
+        final Promise<List<PublishResult>> result = producer.sendAll(asList("a", "b"), payloads("a", "b")).invoke();
+
+        sends.get(0).onCompletion(null, new IllegalStateException("leader not available"));
+        sends.get(1).onCompletion(metadata(0, 11), null);
+
+        final List<PublishResult> results = result.get();
+        assertFalse(results.get(0).isSent());
+        assertEquals("leader not available", results.get(0).getError());
+        assertTrue(results.get(1).isSent());
+        assertEquals(1, producer.stats().failures());
+    }
+
+    @Test
+    public void testSendsOverTheLimitAreRejected() {
+        final Promise<List<PublishResult>> result = producer.sendAll(asList("a", "b", "c"),
+                payloads("a", "b", "c")).invoke();
+
+        assertEquals("the third send never reaches Kafka", 2, sends.size());
+        sends.get(0).onCompletion(metadata(0, 1), null);
+        sends.get(1).onCompletion(metadata(0, 2), null);
+
+        final List<PublishResult> results = result.get();
+        assertTrue(results.get(0).isSent());
+        assertTrue(results.get(1).isSent());
+        assertFalse(results.get(2).isSent());
+        assertEquals("c", results.get(2).getKey());
+        assertEquals(1, producer.stats().rejections());
+    }
+
+    private static List<byte[]> payloads(final String... values) {
+        final List<byte[]> payloads = new ArrayList<>();
+        for (final String value : values) {
+            payloads.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return payloads;
+    }
+
+    private static RecordMetadata metadata(final int partition, final long offset) {
+        return new RecordMetadata(new TopicPartition("messages", partition), offset, 0);
+    }
+}
@@ -0,0 +1,123 @@
+package io.advantageous.reakt.examples.messaging;
+
+import io.advantageous.reakt.promise.Promise;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static org.junit.Assert.*;
+
+public class RetryStageTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<String> deadLetters = new CopyOnWriteArrayList<>();
+    private RetryStage<String> stage;
+
+    @After
+    public void after() {
+        if (stage != null) {
+            stage.close();
+        }
+    }
+
+    @Test
+    public void testRetriesUntilSuccess() {
+        stage = new RetryStage<>(3, Duration.ofMillis(1), Duration.ofMillis(5), this::deadLetter);
+
+        final Promise<?> result = stage.wrap(failTimes(2)).apply("m1").invokeAsBlockingPromise();
+
+        assertTrue(result.success());
+        assertEquals(3, calls.get());
+        assertEquals(2, stage.stats().retries());
+        assertEquals(1, stage.stats().recoveries());
+        assertEquals(0, stage.stats().depth());
+        assertTrue(deadLetters.isEmpty());
+    }
+
+    @Test
+    public void testDeadLettersAfterMaxAttempts() {
+        stage = new RetryStage<>(2, Duration.ofMillis(1), Duration.ofMillis(5), this::deadLetter);
+
+        final Promise<?> result = stage.wrap(failTimes(10)).apply("m1").invokeAsBlockingPromise();
+
+        assertTrue(result.success());
+        assertEquals(2, calls.get());
+        assertEquals(1, stage.stats().deadLetters());
+        assertEquals("m1", deadLetters.get(0));
+    }
+
+    @Test
+    public void testRetriesTheDeadLetter() {
+        final AtomicInteger deadLetterCalls = new AtomicInteger();
+        stage = new RetryStage<>(3, Duration.ofMillis(1), Duration.ofMillis(5), (value, error) ->
+                invokablePromise((Promise<Boolean> promise) -> {
+                    if (deadLetterCalls.incrementAndGet() < 3) {
+                        promise.reject("dead letter topic unavailable");
+                    } else {
+                        deadLetters.add(value);
+                        promise.resolve(true);
+                    }
+                }));
+
+        final Promise<?> result = stage.wrap(failTimes(10)).apply("m1").invokeAsBlockingPromise();
+
+        assertTrue(result.success());
+        assertEquals(3, deadLetterCalls.get());
+        assertEquals(2, stage.stats().deadLetterRetries());
+        assertEquals(1, stage.stats().deadLetters());
+        assertEquals(0, stage.stats().depth());
+    }
+
+    @Test
+    public void testRejectsWhenTheDeadLetterKeepsFailing() {
+        final AtomicInteger deadLetterCalls = new AtomicInteger();
+        stage = new RetryStage<>(2, Duration.ofMillis(1), Duration.ofMillis(5), (value, error) ->
+                invokablePromise((Promise<Boolean> promise) -> {
+                    deadLetterCalls.incrementAndGet();
+                    promise.reject("dead letter topic unavailable");
+                }));
+
+        final Promise<?> result = stage.wrap(failTimes(10)).apply("m1").invokeAsBlockingPromise();
+
+        assertTrue("the consumer must not commit past the message", result.failure());
+        assertEquals(2, deadLetterCalls.get());
+        assertEquals(0, stage.stats().deadLetters());
+    }
+
+    @Test
+    public void testBackoffDoublesUpToMax() {
+        stage = new RetryStage<>(10, Duration.ofMillis(100), Duration.ofMillis(1000), this::deadLetter);
+
+        for (int run = 0; run < 100; run++) {
+            final long first = stage.backoffMs(1);
+            assertTrue(first >= 50 && first <= 100);
+            final long third = stage.backoffMs(3);
+            assertTrue(third >= 200 && third <= 400);
+            final long capped = stage.backoffMs(40);
+            assertTrue(capped >= 500 && capped <= 1000);
+        }
+    }
+
+    private Function<String, Promise<?>> failTimes(final int failures) {
+        return value -> invokablePromise((Promise<Boolean> promise) -> {
+            if (calls.incrementAndGet() <= failures) {
+                promise.reject("failure " + calls.get());
+            } else {
+                promise.resolve(true);
+            }
+        });
+    }
+
+    private Promise<Boolean> deadLetter(final String value, final Throwable error) {
+        return invokablePromise(promise -> {
+            deadLetters.add(value);
+            promise.resolve(true);
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package io.advantageous.reakt.examples.service;
+
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.examples.cache.EntitlementIndex;
+import io.advantageous.reakt.examples.model.Entitlement;
+import io.advantageous.reakt.examples.repository.EntitlementRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EntitlementServiceImplTest {
+
+    private EntitlementRepository repository;
+    private EntitlementIndex index;
+    private EntitlementServiceImpl entitlementService;
+
+    @Before
+    public void before() {
+        repository = mock(EntitlementRepository.class);
+        when(repository.exists(anyString(), anyString()))
+                .thenReturn(invokablePromise(promise -> promise.resolve(false)));
+        when(repository.find(anyString(), anyString()))
+                .thenReturn(invokablePromise(promise -> promise.resolve(new Entitlement("a", "1", 1L))));
+
+        index = new EntitlementIndex(1000, 0.01);
+        entitlementService = new EntitlementServiceImpl(mock(ServiceManagementBundle.class, RETURNS_DEEP_STUBS),
+                repository, index, Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void testEverythingGoesToTheRepositoryUntilLoaded() {
+        assertFalse(entitlementService.exists("a", "1").invoke().get());
+        verify(repository).exists("a", "1");
+    }
+
+    @Test
+    public void testNegativesAreAnsweredFromTheIndex() {
+        index.beginLoad();
+        index.endLoad(1);
+
+        assertFalse(entitlementService.exists("a", "1").invoke().get());
+        assertTrue(entitlementService.retrieve("a", "1").invoke().failure());
+        verifyZeroInteractions(repository);
+    }
+
+    @Test
+    public void testPositivesAreConfirmedByTheRepository() {
+        index.beginLoad();
+        index.loaded("a", "1");
+        index.endLoad(1);
+
+        assertFalse("removed on another instance", entitlementService.exists("a", "1").invoke().get());
+        verify(repository).exists("a", "1");
+
+        assertEquals(1L, entitlementService.retrieve("a", "1").invoke().get().getCreateTime());
+        verify(repository).find("a", "1");
+    }
+}
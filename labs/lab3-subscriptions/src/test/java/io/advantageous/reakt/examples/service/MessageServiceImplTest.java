@@ -0,0 +1,79 @@
+package io.advantageous.reakt.examples.service;
+
+import io.advantageous.config.Config;
+import io.advantageous.qbit.admin.ServiceManagementBundle;
+import io.advantageous.reakt.examples.messaging.Consumer;
+import io.advantageous.reakt.examples.messaging.MessageCodec;
+import io.advantageous.reakt.examples.messaging.Producer;
+import io.advantageous.reakt.examples.model.Message;
+import io.advantageous.reakt.examples.model.PublishResult;
+import io.advantageous.reakt.promise.Promise;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class MessageServiceImplTest {
+
+    private Producer producer;
+    private MessageServiceImpl messageService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        final Config config = mock(Config.class, RETURNS_DEEP_STUBS);
+        when(config.getString("topic")).thenReturn("messages");
+        when(config.getString("format")).thenReturn("json");
+
+        final Consumer consumer = mock(Consumer.class, RETURNS_DEEP_STUBS);
+        when(consumer.processBatches(anyString(), any(MessageCodec.class), any(Function.class)))
+                .thenReturn(invokablePromise(promise -> { }));
+
+        producer = mock(Producer.class, RETURNS_DEEP_STUBS);
+        when(producer.sendAll(anyList(), anyList())).thenAnswer(invocation -> {
+            final List<String> keys = (List<String>) invocation.getArguments()[0];
+            return invokablePromise((Promise<List<PublishResult>> promise) ->
+                    promise.resolve(asList(new PublishResult(keys.get(0), 0, 1),
+                            new PublishResult(keys.get(1), "rejected"))));
+        });
+
+        messageService = new MessageServiceImpl(mock(ServiceManagementBundle.class, RETURNS_DEEP_STUBS),
+                config, producer, consumer);
+    }
+
+    @Test
+    public void testPublishBatchRejectsMissingMessages() {
+        assertTrue(messageService.publishBatch(null).invoke().failure());
+        assertTrue(messageService.publishBatch(asList(new Message("a"), null)).invoke().failure());
+        verify(producer, never()).sendAll(anyList(), anyList());
+    }
+
+    @Test
+    public void testPublishBatchAnswersOneResultPerMessage() {
+        final Message first = new Message("a");
+        final Message second = new Message("b");
+
+        final List<PublishResult> results = messageService.publishBatch(asList(first, second)).invoke().get();
+
+        assertEquals(first.getId(), results.get(0).getKey());
+        assertTrue(results.get(0).isSent());
+        assertEquals(second.getId(), results.get(1).getKey());
+        assertFalse(results.get(1).isSent());
+    }
+
+    @Test
+    public void testPublishBatchResolvesAnEmptyList() {
+        when(producer.sendAll(emptyList(), emptyList())).thenReturn(invokablePromise(
+                (Promise<List<PublishResult>> promise) -> promise.resolve(emptyList())));
+
+        assertTrue(messageService.publishBatch(emptyList()).invoke().get().isEmpty());
+    }
+}
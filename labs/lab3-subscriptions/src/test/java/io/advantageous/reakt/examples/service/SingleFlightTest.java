@@ -0,0 +1,69 @@
+package io.advantageous.reakt.examples.service;
+
+import io.advantageous.reakt.promise.Promise;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private final List<Promise<String>> loads = new ArrayList<>();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private SingleFlight<String, String> flights;
+
+    @Before
+    public void before() {
+        flights = new SingleFlight<>(coalesced::incrementAndGet);
+    }
+
+    @Test
+    public void testCallsForTheSameKeyShareOneLoad() {
+        final List<String> results = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            flights.call("a", promise(String.class).then(results::add), this::load);
+        }
+        flights.call("b", promise(String.class).then(results::add), this::load);
+
+        assertEquals(2, loads.size());
+        assertEquals(2, coalesced.get());
+
+        loads.get(0).resolve("asset a");
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch("asset a"::equals));
+        assertEquals(1, flights.outstanding());
+    }
+
+    @Test
+    public void testFailureRejectsEveryJoinedCall() {
+        final AtomicInteger failed = new AtomicInteger();
+        flights.call("a", promise(String.class).catchError(error -> failed.incrementAndGet()), this::load);
+        flights.call("a", promise(String.class).catchError(error -> failed.incrementAndGet()), this::load);
+
+        loads.get(0).reject(new IllegalStateException("Not connected"));
+
+        assertEquals(2, failed.get());
+        assertEquals(0, flights.outstanding());
+    }
+
+    @Test
+    public void testCallAfterCompletionLoadsAgain() {
+        flights.call("a", promise(String.class), this::load);
+        loads.get(0).resolve("asset a");
+
+        flights.call("a", promise(String.class), this::load);
+
+        assertEquals(2, loads.size());
+        assertEquals(0, coalesced.get());
+    }
+
+    private Promise<String> load() {
+        return invokablePromise(loads::add);
+    }
+}
@@ -0,0 +1,78 @@
+package io.advantageous.reakt.examples.template;
+
+import io.advantageous.reakt.promise.Promise;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.advantageous.reakt.promise.Promises.invokablePromise;
+import static io.advantageous.reakt.promise.Promises.promise;
+import static org.junit.Assert.*;
+
+public class ConnectionStateTest {
+
+    private final List<Promise<Boolean>> attempts = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong(1000);
+    private ConnectionState connectionState;
+
+    @Before
+    public void before() {
+        connectionState = new ConnectionState(() -> invokablePromise(attempts::add), 100, 1000, now::get);
+    }
+
+    @Test
+    public void testCallersShareTheAttemptInFlight() {
+        final AtomicInteger connected = new AtomicInteger();
+        for (int index = 0; index < 10; index++) {
+            connectionState.connect(promise(Boolean.class).then(result -> connected.incrementAndGet()));
+        }
+
+        assertEquals(1, attempts.size());
+        assertEquals(ConnectionState.State.CONNECTING, connectionState.state());
+
+        attempts.get(0).resolve(true);
+
+        assertEquals(10, connected.get());
+        assertEquals(ConnectionState.State.CONNECTED, connectionState.state());
+    }
+
+    @Test
+    public void testNoAttemptDuringTheBackoff() {
+        final AtomicInteger failed = new AtomicInteger();
+        connectionState.connect(promise(Boolean.class).catchError(error -> failed.incrementAndGet()));
+        connectionState.connect(promise(Boolean.class).catchError(error -> failed.incrementAndGet()));
+        attempts.get(0).reject(new IllegalStateException("No host available"));
+
+        assertEquals(2, failed.get());
+        assertEquals(ConnectionState.State.BACKING_OFF, connectionState.state());
+
+        connectionState.connect(promise(Boolean.class).catchError(error -> failed.incrementAndGet()));
+        assertEquals(3, failed.get());
+        assertEquals(1, attempts.size());
+
+        now.addAndGet(100);
+        connectionState.connect(promise(Boolean.class));
+        assertEquals(2, attempts.size());
+        assertEquals(2, connectionState.attempts());
+        assertEquals(1, connectionState.failures());
+    }
+
+    @Test
+    public void testBackoffDoublesWithJitterUpToTheMax() {
+        for (int index = 0; index < 100; index++) {
+            assertBetween(50, 100, ConnectionState.backoffMillis(1, 100, 1000));
+            assertBetween(100, 200, ConnectionState.backoffMillis(2, 100, 1000));
+            assertBetween(400, 800, ConnectionState.backoffMillis(4, 100, 1000));
+            assertBetween(500, 1000, ConnectionState.backoffMillis(5, 100, 1000));
+            assertBetween(500, 1000, ConnectionState.backoffMillis(64, 100, 1000));
+        }
+    }
+
+    private static void assertBetween(final long low, final long high, final long value) {
+        assertTrue(value + " not in " + low + ".." + high, value >= low && value <= high);
+    }
+}
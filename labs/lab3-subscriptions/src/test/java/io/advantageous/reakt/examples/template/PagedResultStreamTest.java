@@ -0,0 +1,120 @@
+package io.advantageous.reakt.examples.template;
+
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.advantageous.reakt.Stream;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+public class PagedResultStreamTest {
+
+    private final LinkedList<ListenableFuture<ResultSet>> pages = new LinkedList<>();
+    private final List<PagingState> fetches = new ArrayList<>();
+    private final List<String> rows = new ArrayList<>();
+    private final PagingState secondPage = mock(PagingState.class);
+    private Consumer<Long> request;
+    private boolean cancelOnFirstRow;
+    private Stream<String> stream;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        stream = mock(Stream.class);
+        doAnswer(invocation -> {
+            final Object[] arguments = invocation.getArguments();
+            rows.add((String) arguments[0]);
+            request = (Consumer<Long>) arguments[3];
+            if (cancelOnFirstRow) {
+                ((Runnable) arguments[2]).run();
+            }
+            return null;
+        }).when(stream).reply(any(), anyBoolean(), any(Runnable.class), any(Consumer.class));
+    }
+
+    @Test
+    public void testFirstPageIsTheInitialDemand() {
+        pages.add(page(secondPage, "a", "b"));
+
+        start(2);
+
+        assertEquals(asList("a", "b"), rows);
+        assertEquals("no read ahead without demand", 1, fetches.size());
+        assertNull(fetches.get(0));
+        verify(stream, never()).complete();
+    }
+
+    @Test
+    public void testNextPageOnlyOnRequest() {
+        pages.add(page(secondPage, "a", "b"));
+        pages.add(page(null, "c"));
+
+        start(2);
+        assertEquals(1, fetches.size());
+
+        request.accept(1L);
+
+        assertEquals(2, fetches.size());
+        assertSame(secondPage, fetches.get(1));
+        assertEquals(asList("a", "b", "c"), rows);
+        verify(stream).complete();
+    }
+
+    @Test
+    public void testCancelStopsThePaging() {
+        cancelOnFirstRow = true;
+        pages.add(page(secondPage, "a", "b"));
+
+        start(2);
+        request.accept(10L);
+
+        assertEquals(asList("a"), rows);
+        assertEquals(1, fetches.size());
+        verify(stream, never()).complete();
+    }
+
+    @Test
+    public void testFailedFetchFailsTheStream() {
+        pages.add(Futures.immediateFailedFuture(new IllegalStateException("No host available")));
+
+        start(2);
+
+        verify(stream).fail(any(Throwable.class));
+        assertTrue(rows.isEmpty());
+    }
+
+    private void start(final int fetchSize) {
+        new PagedResultStream<>(state -> {
+            fetches.add(state);
+            return pages.removeFirst();
+        }, row -> row.getString("id"), stream, fetchSize).start();
+    }
+
+    private static ListenableFuture<ResultSet> page(final PagingState next, final String... ids) {
+        final ResultSet resultSet = mock(ResultSet.class, RETURNS_DEEP_STUBS);
+        when(resultSet.getExecutionInfo().getPagingState()).thenReturn(next);
+        when(resultSet.getAvailableWithoutFetching()).thenReturn(ids.length);
+
+        final Row[] rows = Arrays.stream(ids).map(id -> {
+            final Row row = mock(Row.class);
+            when(row.getString("id")).thenReturn(id);
+            return row;
+        }).toArray(Row[]::new);
+        when(resultSet.one()).thenReturn(rows[0], Arrays.copyOfRange(rows, 1, rows.length));
+        return Futures.immediateFuture(resultSet);
+    }
+}
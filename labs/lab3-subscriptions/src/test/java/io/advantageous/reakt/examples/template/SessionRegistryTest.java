@@ -0,0 +1,32 @@
+package io.advantageous.reakt.examples.template;
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class SessionRegistryTest {
+
+    private static final URI FIRST = URI.create("cassandra://node1:9042");
+    private static final URI SECOND = URI.create("cassandra://node2:9042");
+
+    @Test
+    public void testContactPointsInAnyOrderShareACluster() {
+        assertEquals(new SessionRegistry.ClusterKey(asList(FIRST, SECOND), ConnectionProfile.DEFAULT),
+                new SessionRegistry.ClusterKey(asList(SECOND, FIRST, SECOND), ConnectionProfile.DEFAULT));
+    }
+
+    @Test
+    public void testOtherPortOrProfileGetsItsOwnCluster() {
+        final SessionRegistry.ClusterKey key = new SessionRegistry.ClusterKey(asList(FIRST), ConnectionProfile.DEFAULT);
+
+        assertNotEquals(key, new SessionRegistry.ClusterKey(asList(URI.create("cassandra://node1:39042")),
+                ConnectionProfile.DEFAULT));
+        assertNotEquals(key, new SessionRegistry.ClusterKey(asList(FIRST),
+                new ConnectionProfile("", true, 0, 0, 0, "lz4", 0, 0, 0)));
+        assertEquals(key, new SessionRegistry.ClusterKey(asList(FIRST),
+                new ConnectionProfile("", true, 0, 0, 0, "none", 0, 0, 0)));
+    }
+}
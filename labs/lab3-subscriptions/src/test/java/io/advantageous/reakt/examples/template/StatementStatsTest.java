@@ -0,0 +1,23 @@
+package io.advantageous.reakt.examples.template;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StatementStatsTest {
+
+    @Test
+    public void testShapeNames() {
+        assertTrue(StatementStats.name("SELECT * FROM Asset WHERE id=? LIMIT 1;").startsWith("select.asset."));
+        assertTrue(StatementStats.name("INSERT INTO Entitlement (asset_id,subscription_id) VALUES (?,?);")
+                .startsWith("insert.entitlement."));
+        assertTrue(StatementStats.name("UPDATE Subscription SET name=? WHERE id=?;").startsWith("update.subscription."));
+        assertTrue(StatementStats.name("DELETE FROM \"Asset\" WHERE id=?;").startsWith("delete.asset."));
+    }
+
+    @Test
+    public void testShapesOfTheSameTableHaveDifferentNames() {
+        assertNotEquals(StatementStats.name("SELECT * FROM Asset WHERE id=? LIMIT 1;"),
+                StatementStats.name("SELECT * FROM Asset LIMIT 1000;"));
+    }
+}
@@ -0,0 +1,128 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import io.advantageous.reakt.examples.cache.EntityCache;
+import io.advantageous.reakt.examples.cache.LruEntityCache;
+import io.advantageous.reakt.examples.model.Entitlement;
+import io.advantageous.reakt.examples.model.Subscription;
+import io.advantageous.reakt.examples.repository.EntitlementRepository;
+import io.advantageous.reakt.examples.repository.SubscriptionRepository;
+import io.advantageous.reakt.promise.Promise;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InMemoryDatabaseTest {
+
+    private InMemoryDatabase database;
+    private SubscriptionRepository subscriptionRepository;
+    private EntitlementRepository entitlementRepository;
+
+    @Before
+    public void before() {
+        database = new InMemoryDatabase(Duration.ofMillis(1), Duration.ofMillis(1));
+        subscriptionRepository = new SubscriptionRepository(database, EntityCache.noCache());
+        entitlementRepository = new EntitlementRepository(database, EntityCache.noCache());
+    }
+
+    @After
+    public void after() {
+        database.close();
+    }
+
+    @Test
+    public void testStoreAndFind() {
+        assertTrue(subscriptionRepository.store(new Subscription("s1", "premium", "tp1"))
+                .invokeAsBlockingPromise().get());
+
+        final Promise<Subscription> found = subscriptionRepository.find("s1").invokeAsBlockingPromise();
+        assertTrue(found.success());
+        assertEquals("premium", found.get().getName());
+        assertEquals("tp1", found.get().getThirdPartyId());
+        assertTrue(found.get().getCreateTime() > 0);
+    }
+
+    @Test
+    public void testFindMissing() {
+        assertTrue(subscriptionRepository.find("missing").invokeAsBlockingPromise().failure());
+    }
+
+    @Test
+    public void testUpdate() {
+        subscriptionRepository.store(new Subscription("s1", "premium", "tp1")).invokeAsBlockingPromise();
+        final Subscription subscription = subscriptionRepository.find("s1").invokeAsBlockingPromise().get();
+
+        subscription.setName("basic");
+        assertTrue(subscriptionRepository.update(subscription).invokeAsBlockingPromise().success());
+
+        final Subscription updated = subscriptionRepository.find("s1").invokeAsBlockingPromise().get();
+        assertEquals("basic", updated.getName());
+        assertEquals("tp1", updated.getThirdPartyId());
+    }
+
+    @Test
+    public void testRemoveCompositeKey() {
+        entitlementRepository.store(new Entitlement("a1", "s1", 0)).invokeAsBlockingPromise();
+        entitlementRepository.store(new Entitlement("a1", "s2", 0)).invokeAsBlockingPromise();
+
+        assertTrue(entitlementRepository.remove("a1", "s1").invokeAsBlockingPromise().success());
+
+        assertTrue(entitlementRepository.find("a1", "s1").invokeAsBlockingPromise().failure());
+        assertTrue(entitlementRepository.find("a1", "s2").invokeAsBlockingPromise().success());
+        assertEquals(1, entitlementRepository.list().invokeAsBlockingPromise().get().size());
+    }
+
+    @Test
+    public void testScan() {
+        for (int index = 0; index < 10; index++) {
+            entitlementRepository.store(new Entitlement("a" + index, "s", 0)).invokeAsBlockingPromise();
+        }
+
+        final List<Entitlement> scanned = new ArrayList<>();
+        final Promise<Long> count = entitlementRepository.scanKeys(scanned::add).invokeAsBlockingPromise();
+
+        assertEquals(10L, (long) count.get());
+        assertEquals(10, scanned.size());
+        assertEquals("s", scanned.get(0).getSubscriptionId());
+    }
+
+    @Test
+    public void testExists() {
+        entitlementRepository.store(new Entitlement("a1", "s1", 0)).invokeAsBlockingPromise();
+
+        assertTrue(entitlementRepository.exists("a1", "s1").invokeAsBlockingPromise().get());
+        assertFalse(entitlementRepository.exists("a1", "s2").invokeAsBlockingPromise().get());
+    }
+
+    @Test
+    public void testExistsDoesNotConfuseIdsWithSeparators() {
+        final EntitlementRepository cached = new EntitlementRepository(database,
+                new LruEntityCache<>(100, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+        cached.store(new Entitlement("a", "b:c", 0)).invokeAsBlockingPromise();
+
+        assertTrue(cached.exists("a", "b:c").invokeAsBlockingPromise().get());
+        assertFalse(cached.exists("a:b", "c").invokeAsBlockingPromise().get());
+        assertTrue(cached.exists("a", "b:c").invokeAsBlockingPromise().get());
+    }
+
+    @Test
+    public void testParsesQueryBuilderShapes() {
+        final CqlStatement select = CqlStatement.parse(
+                "SELECT asset_id,subscription_id FROM Entitlement " +
+                        "WHERE token(asset_id,subscription_id)>? AND token(asset_id,subscription_id)<=? LIMIT 10;");
+        assertEquals(CqlStatement.Kind.SELECT, select.kind);
+        assertEquals("entitlement", select.table);
+        assertEquals(2, select.columns.size());
+        assertTrue(select.where.get(0).token);
+        assertEquals(10, select.limit);
+
+        final CqlStatement update = CqlStatement.parse("UPDATE Asset SET name=? WHERE id=? AND createTime=?;");
+        assertEquals("name", update.columns.get(0));
+        assertEquals("createtime", update.where.get(1).column);
+    }
+}
@@ -0,0 +1,57 @@
+package io.advantageous.reakt.examples.template.memory;
+
+import com.datastax.driver.core.Row;
+import io.advantageous.reakt.examples.template.RowColumns;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class InMemoryRowTest {
+
+    private final UUID uuid = UUID.randomUUID();
+    private final Date date = new Date(1000L);
+    private final Row row = InMemoryRow.row(asList("id", "created", "count", "active", "token", "missing"),
+            new Object[]{"a", date, 3, true, uuid, null});
+
+    @Test
+    public void testGettersByNameAndIndex() {
+        assertEquals("a", row.getString("id"));
+        assertEquals("a", row.getString(0));
+        assertSame(date, row.getTimestamp("created"));
+        assertEquals(3, row.getInt("count"));
+        assertEquals(3L, row.getLong(2));
+        assertTrue(row.getBool("active"));
+        assertEquals(uuid, row.getUUID("token"));
+        assertEquals("a", row.getObject("id"));
+    }
+
+    @Test
+    public void testNullValues() {
+        assertTrue(row.isNull("missing"));
+        assertFalse(row.isNull("id"));
+        assertNull(row.getString("missing"));
+        assertEquals(0, row.getInt("missing"));
+        assertFalse(row.getBool("missing"));
+    }
+
+    @Test
+    public void testColumnIndexes() {
+        final RowColumns columns = (RowColumns) row;
+        assertEquals(2, columns.indexOf("count"));
+        assertEquals(-1, columns.indexOf("other"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        row.getString("other");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupportedGetter() {
+        row.getFloat("count");
+    }
+}
@@ -0,0 +1,54 @@
+package io.advantageous.reakt.examples.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, LatencyHistogram.highest(LatencyHistogram.index(value)));
+        }
+    }
+
+    @Test
+    public void testBucketsAreContiguousAndPrecise() {
+        int previous = LatencyHistogram.index(127);
+        for (long value = 128; value < 1_000_000; value++) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(index == previous || index == previous + 1);
+            previous = index;
+
+            final long highest = LatencyHistogram.highest(index);
+            assertTrue(highest >= value);
+            assertTrue((highest - value) / (double) value < 0.016);
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE,
+                LatencyHistogram.highest(LatencyHistogram.index(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000, histogram.valueAt(0.5), 5_000 * 0.016);
+        assertEquals(9_900, histogram.valueAt(0.99), 9_900 * 0.016);
+        assertEquals(9_990, histogram.valueAt(0.999), 9_990 * 0.016);
+    }
+
+    @Test
+    public void testClampsOutOfRangeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.valueAt(0.5));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.valueAt(1.0));
+    }
+}